@@ -1,17 +1,34 @@
 #!/bin/sh
 # Create LMR topics. Run after Kafka is up: docker exec -it <kafka-container> /bin/sh -c '...'
-# Or from host: docker compose -f infra/docker-compose.yml exec kafka kafka-topics --bootstrap-server localhost:29092 --create --if-not-exists --topic lmr.approved.v1 --partitions 1 --replication-factor 1
+# Or from host: docker compose -f infra/docker-compose.yml exec kafka kafka-topics --bootstrap-server localhost:29092 --create --if-not-exists --topic lmr.approved.v1 --partitions 6 --replication-factor 1
+# Both compose files also run this script once through the kafka-init service.
 # Eligibility topic MUST be log-compacted so LES can rebuild read-model from the topic.
+#
+# KAFKA_TOPIC_PARTITIONS (default 6) is the partition count, i.e. how many consumers per group can work at once.
+# Keep LES_KAFKA_PARTITIONS / MECT_KAFKA_PARTITIONS in step with it. Existing topics with fewer partitions are
+# grown; Kafka cannot shrink them. Growing moves keys to new partitions: records already in the log for a key
+# may then be consumed alongside newer ones on another partition, which eligibility tolerates through its version
+# watermark and the other topics through event-id idempotency.
 
 set -e
 BOOTSTRAP="${KAFKA_BOOTSTRAP:-localhost:9092}"
+PARTITIONS="${KAFKA_TOPIC_PARTITIONS:-6}"
+
+ensure_partitions() {
+  current=$(kafka-topics --bootstrap-server "$BOOTSTRAP" --describe --topic "$1" | grep -c "Partition: ")
+  if [ "$current" -lt "$PARTITIONS" ]; then
+    kafka-topics --bootstrap-server "$BOOTSTRAP" --alter --topic "$1" --partitions "$PARTITIONS"
+  fi
+}
 
 for topic in lmr.approved.v1 lmr.withdraw.requested.v1 lmr.withdraw.completed.v1 lmr.withdraw.rejected.v1; do
-  kafka-topics --bootstrap-server "$BOOTSTRAP" --create --if-not-exists --topic "$topic" --partitions 1 --replication-factor 1
+  kafka-topics --bootstrap-server "$BOOTSTRAP" --create --if-not-exists --topic "$topic" --partitions "$PARTITIONS" --replication-factor 1
+  ensure_partitions "$topic"
 done
 
 # Log-compacted: key = planningYear:lmrId; latest value per key is the current eligibility state.
 kafka-topics --bootstrap-server "$BOOTSTRAP" --create --if-not-exists --topic lmr.withdraw.eligibility.v1 \
-  --partitions 1 --replication-factor 1 --config cleanup.policy=compact --config min.cleanable.dirty.ratio=0.01
+  --partitions "$PARTITIONS" --replication-factor 1 --config cleanup.policy=compact --config min.cleanable.dirty.ratio=0.01
+ensure_partitions lmr.withdraw.eligibility.v1
 
-echo "Topics created."
+echo "Topics created with $PARTITIONS partitions."
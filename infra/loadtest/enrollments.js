@@ -0,0 +1,50 @@
+// LES request load for the platform vs virtual thread comparison (see README.md in this directory).
+// Each iteration walks one new enrollment through create -> submit -> approve (outbox write + Kafka dispatch)
+// and then reads its eligibility a few times, so most requests block on JDBC.
+import http from 'k6/http';
+import { check } from 'k6';
+import exec from 'k6/execution';
+
+const LES_URL = __ENV.LES_URL || 'http://localhost:8081';
+const PEAK_VUS = parseInt(__ENV.PEAK_VUS || '400', 10);
+const RUN_ID = __ENV.RUN_ID || `${Date.now()}`;
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export const options = {
+  scenarios: {
+    ramp: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: Math.floor(PEAK_VUS / 4) },
+        { duration: '30s', target: Math.floor(PEAK_VUS / 2) },
+        { duration: '60s', target: PEAK_VUS },
+        { duration: '60s', target: PEAK_VUS },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+  const lmrId = `LT-${RUN_ID}-${exec.vu.idInTest}-${exec.vu.iterationInScenario}`;
+  const created = http.post(`${LES_URL}/api/lmrs`, JSON.stringify({
+    lmrId,
+    marketParticipantName: 'Load Test MP',
+    lmrName: `Load ${lmrId}`,
+    resourceType: 'LMR_DR',
+    planningYear: '2026-2027',
+  }), Object.assign({ tags: { name: 'create' } }, JSON_HEADERS));
+  if (!check(created, { 'create 201': (r) => r.status === 201 })) return;
+
+  check(http.post(`${LES_URL}/api/lmrs/${lmrId}/submit`, null, { tags: { name: 'submit' } }),
+    { 'submit 200': (r) => r.status === 200 });
+  check(http.post(`${LES_URL}/api/lmrs/${lmrId}/approve`, null, { tags: { name: 'approve' } }),
+    { 'approve 200': (r) => r.status === 200 });
+  for (let i = 0; i < 3; i++) {
+    check(http.get(`${LES_URL}/api/lmrs/${lmrId}/withdraw-eligibility`, { tags: { name: 'eligibility' } }),
+      { 'eligibility 200': (r) => r.status === 200 });
+  }
+}
@@ -0,0 +1,64 @@
+#!/bin/sh
+# Run the LES load test once against whatever LES is up, and sample the JVM while it runs.
+# usage: infra/loadtest/run.sh <label>     e.g. platform, then virtual (see README.md)
+#
+# LES_URL (default http://localhost:8081), PEAK_VUS (default 400), LES_CONTAINER (docker container to read RSS
+# from; default: the compose les-service container if there is one), SAMPLE_SECONDS (default 2).
+
+set -e
+LABEL="${1:?usage: run.sh <label>}"
+DIR="$(cd "$(dirname "$0")" && pwd)"
+OUT="$DIR/results"
+LES_URL="${LES_URL:-http://localhost:8081}"
+PEAK_VUS="${PEAK_VUS:-400}"
+SAMPLE_SECONDS="${SAMPLE_SECONDS:-2}"
+LES_CONTAINER="${LES_CONTAINER:-$(docker compose ps -q les-service 2>/dev/null || true)}"
+mkdir -p "$OUT"
+
+metric() {
+  # metric <name> [tag]  -> first measurement value, or empty
+  url="$LES_URL/actuator/metrics/$1"
+  [ -n "$2" ] && url="$url?tag=$2"
+  curl -sf "$url" | sed -n 's/.*"measurements":\[{"statistic":"[A-Z_]*","value":\([0-9.E+-]*\)}.*/\1/p'
+}
+
+active_requests() {
+  curl -sf "$LES_URL/actuator/metrics/http.server.requests.active" \
+    | sed -n 's/.*"statistic":"ACTIVE_TASKS","value":\([0-9.E+-]*\).*/\1/p'
+}
+
+sample() {
+  echo "epoch,active_requests,threads_live,heap_used,nonheap_used,hikari_active,hikari_pending,rss" > "$OUT/$LABEL-jvm.csv"
+  while :; do
+    rss=""
+    [ -n "$LES_CONTAINER" ] && rss=$(docker stats --no-stream --format '{{.MemUsage}}' "$LES_CONTAINER" | cut -d/ -f1 | tr -d ' ')
+    echo "$(date +%s),$(active_requests),$(metric jvm.threads.live),$(metric jvm.memory.used area:heap),$(metric jvm.memory.used area:nonheap),$(metric hikaricp.connections.active),$(metric hikaricp.connections.pending),$rss" \
+      >> "$OUT/$LABEL-jvm.csv"
+    sleep "$SAMPLE_SECONDS"
+  done
+}
+
+if command -v k6 >/dev/null 2>&1; then
+  K6="k6"
+  SCRIPT="$DIR/enrollments.js"
+  SUMMARY="$OUT/$LABEL-summary.json"
+else
+  K6="docker run --rm -i --network host -v $DIR:/loadtest grafana/k6"
+  SCRIPT="/loadtest/enrollments.js"
+  SUMMARY="/loadtest/results/$LABEL-summary.json"
+fi
+
+sample &
+SAMPLER=$!
+trap 'kill $SAMPLER 2>/dev/null' EXIT
+
+$K6 run -e LES_URL="$LES_URL" -e PEAK_VUS="$PEAK_VUS" -e RUN_ID="$LABEL-$(date +%s)" \
+  --summary-export "$SUMMARY" "$SCRIPT"
+
+kill $SAMPLER 2>/dev/null || true
+awk -F, -v label="$LABEL" 'NR > 1 {
+    if ($2 > a) a = $2; if ($3 > t) t = $3; if ($4 > h) h = $4; if ($7 > p) p = $7
+  } END {
+    printf "%s peak: active requests %d, live threads %d, heap %.0f MiB, hikari pending %d\n", label, a, t, h / 1048576, p
+  }' "$OUT/$LABEL-jvm.csv"
+echo "k6 summary: $OUT/$LABEL-summary.json, JVM samples: $OUT/$LABEL-jvm.csv"
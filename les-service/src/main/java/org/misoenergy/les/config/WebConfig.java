@@ -20,6 +20,7 @@ public class WebConfig {
         config.setAllowedOrigins(List.of("http://localhost:4200", "http://127.0.0.1:4200"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("ETag"));
         source.registerCorsConfiguration("/api/**", config);
         return new CorsFilter(source);
     }
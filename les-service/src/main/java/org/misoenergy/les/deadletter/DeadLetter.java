@@ -0,0 +1,77 @@
+package org.misoenergy.les.deadletter;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A consumed record that could not be processed: it exhausted the retry topics, or could not be decoded at all.
+ * {@code topic} is the original (main) topic and {@code payload} the record value as received, so a replay
+ * republishes exactly what was consumed. Replayed rows are kept, with {@code replayedAt} set.
+ */
+@Entity
+@Table(name = "dead_letter", indexes = @Index(columnList = "topic, id"))
+public class DeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false, length = 128)
+    private String topic;
+
+    @Column(name = "partition_no")
+    private Integer partition;
+
+    @Column(name = "offset_no")
+    private Long offset;
+
+    @Column(name = "message_key", length = 256)
+    private String messageKey;
+
+    /** Value of the record's {@code encoding} header ({@code json} when it had none). */
+    @Column(name = "encoding", nullable = false, length = 16)
+    private String encoding;
+
+    @Column(name = "payload")
+    private byte[] payload;
+
+    @Column(name = "exception_class", length = 256)
+    private String exceptionClass;
+
+    @Column(name = "exception_message", columnDefinition = "text")
+    private String exceptionMessage;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt;
+
+    @Column(name = "replayed_at")
+    private Instant replayedAt;
+
+    @PrePersist
+    void failed() {
+        if (failedAt == null) failedAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+    public Integer getPartition() { return partition; }
+    public void setPartition(Integer partition) { this.partition = partition; }
+    public Long getOffset() { return offset; }
+    public void setOffset(Long offset) { this.offset = offset; }
+    public String getMessageKey() { return messageKey; }
+    public void setMessageKey(String messageKey) { this.messageKey = messageKey; }
+    public String getEncoding() { return encoding; }
+    public void setEncoding(String encoding) { this.encoding = encoding; }
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+    public String getExceptionClass() { return exceptionClass; }
+    public void setExceptionClass(String exceptionClass) { this.exceptionClass = exceptionClass; }
+    public String getExceptionMessage() { return exceptionMessage; }
+    public void setExceptionMessage(String exceptionMessage) { this.exceptionMessage = exceptionMessage; }
+    public Instant getFailedAt() { return failedAt; }
+    public void setFailedAt(Instant failedAt) { this.failedAt = failedAt; }
+    public Instant getReplayedAt() { return replayedAt; }
+    public void setReplayedAt(Instant replayedAt) { this.replayedAt = replayedAt; }
+}
@@ -0,0 +1,110 @@
+package org.misoenergy.les.deadletter;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.kafka.LesKafkaConsumers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Replays dead letters by running the stored record through its listener's logic again
+ * ({@link LesKafkaConsumers#replay}), locally and in a transaction of its own.
+ * <p>
+ * Nothing is produced: the topics belong to the service that publishes them, and an old record written back onto a
+ * compacted topic would replace newer state for every consumer. The failed attempt committed nothing (no
+ * processed_event claim), so the replayed record is processed as new. A dead letter stays pending when its replay
+ * fails again, and one without an event to apply (a tombstone or a JSON {@code null}) is refused with 409.
+ * <p>
+ * Separate from {@link DeadLetterService}, which the listeners depend on to park records.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final LesKafkaConsumers consumers;
+    private final TransactionTemplate transactionTemplate;
+
+    public DeadLetterReplayService(DeadLetterRepository deadLetterRepository,
+                                   LesKafkaConsumers consumers,
+                                   TransactionTemplate transactionTemplate) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.consumers = consumers;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** Replay one dead letter; 404 when unknown, 409 when already replayed or empty, 422 when it fails again. */
+    public DeadLetter replay(long id) {
+        return transactionTemplate.execute(status -> replayPending(id));
+    }
+
+    /**
+     * Replay up to {@code limit} not yet replayed dead letters of {@code topic}, oldest first, each in its own
+     * transaction; the ones that cannot be replayed are logged and stay pending. Returns the number replayed.
+     */
+    public int replayAll(String topic, int limit) {
+        List<DeadLetter> pending = deadLetterRepository.findByTopicAndReplayedAtIsNullOrderByIdAsc(
+                topic, PageRequest.ofSize(Math.max(1, Math.min(limit, 10000))));
+        int replayed = 0;
+        for (DeadLetter letter : pending) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> replayPending(letter.getId()));
+                replayed++;
+            } catch (ResponseStatusException ex) {
+                log.warn("Dead letter {} not replayed: {}", letter.getId(), ex.getReason());
+            }
+        }
+        return replayed;
+    }
+
+    private DeadLetter replayPending(long id) {
+        DeadLetter letter = deadLetterRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dead letter not found: " + id));
+        if (letter.getReplayedAt() != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Dead letter " + id + " was already replayed at " + letter.getReplayedAt());
+        }
+        if (letter.getPayload() == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Dead letter " + id + " is a tombstone, nothing to replay");
+        }
+        try {
+            consumers.replay(toRecord(letter));
+        } catch (EventCodec.NoEventException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Dead letter " + id + " carries no event, nothing to replay");
+        } catch (Exception ex) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Dead letter " + id + " failed again: " + ex.getMessage(), ex);
+        }
+        letter.setReplayedAt(Instant.now());
+        deadLetterRepository.save(letter);
+        log.info("Dead letter {} replayed from {} key={}", id, letter.getTopic(), letter.getMessageKey());
+        return letter;
+    }
+
+    /** The stored record as consumed, timestamped with its failure (the key of events without occurredAt). */
+    static ConsumerRecord<String, byte[]> toRecord(DeadLetter letter) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(EventCodec.HEADER, letter.getEncoding().getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(letter.getTopic(),
+                letter.getPartition() != null ? letter.getPartition() : -1,
+                letter.getOffset() != null ? letter.getOffset() : -1L,
+                letter.getFailedAt().toEpochMilli(), TimestampType.CREATE_TIME,
+                ConsumerRecord.NULL_SIZE, letter.getPayload().length,
+                letter.getMessageKey(), letter.getPayload(), headers, Optional.empty());
+    }
+}
@@ -0,0 +1,16 @@
+package org.misoenergy.les.deadletter;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long> {
+
+    List<DeadLetter> findAllByOrderByIdDesc(Pageable page);
+
+    List<DeadLetter> findByTopicOrderByIdDesc(String topic, Pageable page);
+
+    /** Not yet replayed, oldest first (the order they are replayed in). */
+    List<DeadLetter> findByTopicAndReplayedAtIsNullOrderByIdAsc(String topic, Pageable page);
+}
@@ -10,6 +10,8 @@ import java.util.List;
  * Keyed by planningYear:lmrId; updated when we consume lmr.withdraw.eligibility.v1.
  * {@code reason} is the user-facing message from MECT (e.g. why withdraw is blocked).
  * LES does not map blocking codes to text—display reason as-is.
+ * Written by {@code LMRWithdrawEligibilityRepository#applyIfNewer}: {@code (version, updatedAt)} is the
+ * watermark of the applied event, and older or repeated events leave the row untouched.
  */
 @Entity
 @Table(name = "lmr_withdraw_eligibility",
@@ -41,10 +43,13 @@ public class LMRWithdrawEligibility {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @PrePersist
     @PreUpdate
     void updated() {
-        updatedAt = Instant.now();
+        if (updatedAt == null) updatedAt = Instant.now();
     }
 
     public static String cacheKey(String planningYear, String lmrId) {
@@ -67,4 +72,6 @@ public class LMRWithdrawEligibility {
     public void setBlockingFlags(List<String> blockingFlags) { this.blockingFlags = blockingFlags != null ? blockingFlags : new ArrayList<>(); }
     public Instant getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -0,0 +1,119 @@
+package org.misoenergy.les.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JSON or binary encoding of the LMR events, chosen per topic by {@code les.kafka.binary-topics}.
+ * <p>
+ * The encoding travels in the {@value #HEADER} record header ({@value #JSON} or {@value #BINARY}); a record
+ * without it is JSON. Consumers read both whatever this service writes, so a topic is switched to binary only
+ * once every consumer of it runs a version that decodes binary (docs/event-encoding.md).
+ */
+@Component
+public class EventCodec {
+
+    public static final String HEADER = "encoding";
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+
+    private static final BinarySchema<LmrApprovedEvent> APPROVED = base(new BinarySchema<>(LmrApprovedEvent::new))
+            .string(7, LmrApprovedEvent::getMarketParticipantName, LmrApprovedEvent::setMarketParticipantName)
+            .string(8, LmrApprovedEvent::getLmrName, LmrApprovedEvent::setLmrName)
+            .string(9, LmrApprovedEvent::getResourceType, LmrApprovedEvent::setResourceType);
+    private static final BinarySchema<LmrWithdrawRequestedEvent> WITHDRAW_REQUESTED = base(new BinarySchema<>(LmrWithdrawRequestedEvent::new));
+    private static final BinarySchema<LmrWithdrawCompletedEvent> WITHDRAW_COMPLETED = base(new BinarySchema<>(LmrWithdrawCompletedEvent::new));
+    private static final BinarySchema<LmrWithdrawRejectedEvent> WITHDRAW_REJECTED = base(new BinarySchema<>(LmrWithdrawRejectedEvent::new));
+    private static final BinarySchema<LmrWithdrawEligibilityEvent> ELIGIBILITY = new BinarySchema<>(LmrWithdrawEligibilityEvent::new)
+            .string(1, LmrWithdrawEligibilityEvent::getEventId, LmrWithdrawEligibilityEvent::setEventId)
+            .string(2, LmrWithdrawEligibilityEvent::getEventType, LmrWithdrawEligibilityEvent::setEventType)
+            .instant(3, LmrWithdrawEligibilityEvent::getOccurredAt, LmrWithdrawEligibilityEvent::setOccurredAt)
+            .string(4, LmrWithdrawEligibilityEvent::getLmrId, LmrWithdrawEligibilityEvent::setLmrId)
+            .string(5, LmrWithdrawEligibilityEvent::getPlanningYear, LmrWithdrawEligibilityEvent::setPlanningYear)
+            .string(6, LmrWithdrawEligibilityEvent::getReason, LmrWithdrawEligibilityEvent::setReason)
+            .bool(7, LmrWithdrawEligibilityEvent::getCanWithdraw, LmrWithdrawEligibilityEvent::setCanWithdraw)
+            .strings(8, LmrWithdrawEligibilityEvent::getBlockingFlags, LmrWithdrawEligibilityEvent::setBlockingFlags)
+            .instant(9, LmrWithdrawEligibilityEvent::getUpdatedAt, LmrWithdrawEligibilityEvent::setUpdatedAt)
+            .int64(10, LmrWithdrawEligibilityEvent::getVersion, LmrWithdrawEligibilityEvent::setVersion);
+
+    private static final Map<Class<?>, BinarySchema<?>> SCHEMAS = Map.of(
+            LmrApprovedEvent.class, APPROVED,
+            LmrWithdrawRequestedEvent.class, WITHDRAW_REQUESTED,
+            LmrWithdrawCompletedEvent.class, WITHDRAW_COMPLETED,
+            LmrWithdrawRejectedEvent.class, WITHDRAW_REJECTED,
+            LmrWithdrawEligibilityEvent.class, ELIGIBILITY);
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> binaryTopics;
+
+    public EventCodec(ObjectMapper objectMapper,
+                      @Value("${les.kafka.binary-topics:}") List<String> binaryTopics) {
+        this.objectMapper = objectMapper;
+        this.binaryTopics = binaryTopics.stream().map(String::trim).filter(t -> !t.isEmpty()).collect(Collectors.toSet());
+    }
+
+    public boolean isBinary(String topic) {
+        return binaryTopics.contains(topic);
+    }
+
+    public String toJson(Object event) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(event);
+    }
+
+    public byte[] toBinary(Object event) {
+        return schema(event.getClass()).encode(event);
+    }
+
+    /**
+     * Decode a consumed record according to its {@value #HEADER} header. Never returns null: a tombstone or a JSON
+     * {@code null} throws {@link NoEventException}, a truncated binary payload {@link IllegalArgumentException}.
+     */
+    public <T> T decode(ConsumerRecord<String, byte[]> record, Class<T> type) throws IOException {
+        if (record.value() == null) throw new NoEventException(record);
+        Header header = record.headers().lastHeader(HEADER);
+        String encoding = header != null ? new String(header.value(), StandardCharsets.UTF_8) : JSON;
+        T event = switch (encoding) {
+            case JSON -> objectMapper.readValue(record.value(), type);
+            case BINARY -> type.cast(schema(type).decode(record.value()));
+            default -> throw new IOException("Unknown event encoding '" + encoding + "' on " + record.topic());
+        };
+        if (event == null) throw new NoEventException(record);
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BinarySchema<T> schema(Class<?> type) {
+        BinarySchema<?> schema = SCHEMAS.get(type);
+        if (schema == null) throw new IllegalArgumentException("No binary schema for " + type.getName());
+        return (BinarySchema<T>) schema;
+    }
+
+    /** Fields 1-6, shared by every event extending {@link BaseLmrEvent}. */
+    private static <T extends BaseLmrEvent> BinarySchema<T> base(BinarySchema<T> schema) {
+        return schema
+                .string(1, BaseLmrEvent::getEventId, BaseLmrEvent::setEventId)
+                .string(2, BaseLmrEvent::getEventType, BaseLmrEvent::setEventType)
+                .instant(3, BaseLmrEvent::getOccurredAt, BaseLmrEvent::setOccurredAt)
+                .string(4, BaseLmrEvent::getLmrId, BaseLmrEvent::setLmrId)
+                .string(5, BaseLmrEvent::getPlanningYear, BaseLmrEvent::setPlanningYear)
+                .string(6, BaseLmrEvent::getReason, BaseLmrEvent::setReason);
+    }
+
+    /** The record carries no event to apply: a tombstone or a JSON {@code null}. Not retried, like any bad payload. */
+    public static class NoEventException extends IllegalArgumentException {
+        public NoEventException(ConsumerRecord<?, ?> record) {
+            super("No event in " + record.topic() + "-" + record.partition() + "@" + record.offset());
+        }
+    }
+}
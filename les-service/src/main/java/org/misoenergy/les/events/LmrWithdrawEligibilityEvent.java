@@ -21,6 +21,8 @@ public class LmrWithdrawEligibilityEvent {
     private String reason;
     private List<String> blockingFlags;
     private Instant updatedAt;
+    /** Per-LMR eligibility version from MECT, incremented on every publish; consumers keep the highest seen. */
+    private Long version;
 
     public String getEventId() { return eventId; }
     public void setEventId(String eventId) { this.eventId = eventId; }
@@ -40,4 +42,6 @@ public class LmrWithdrawEligibilityEvent {
     public void setBlockingFlags(List<String> blockingFlags) { this.blockingFlags = blockingFlags; }
     public Instant getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -3,18 +3,25 @@ package org.misoenergy.les.idempotency;
 import jakarta.persistence.*;
 import java.time.Instant;
 
-/** Tracks consumed event IDs for idempotent processing. */
+/**
+ * Tracks consumed event IDs for idempotent processing. The table is range-partitioned by {@code occurred_at}
+ * (the event's own timestamp) and unique on {@code (event_id, occurred_at)}; rows are written by
+ * {@link ProcessedEventRepository#claim}.
+ */
 @Entity
-@Table(name = "processed_event", indexes = @Index(unique = true, columnList = "event_id"))
+@Table(name = "processed_event", indexes = @Index(columnList = "event_id"))
 public class ProcessedEvent {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "event_id", nullable = false, unique = true, length = 64)
+    @Column(name = "event_id", nullable = false, length = 64)
     private String eventId;
 
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
     @Column(name = "processed_at", nullable = false)
     private Instant processedAt;
 
@@ -27,6 +34,8 @@ public class ProcessedEvent {
     public void setId(Long id) { this.id = id; }
     public String getEventId() { return eventId; }
     public void setEventId(String eventId) { this.eventId = eventId; }
+    public Instant getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(Instant occurredAt) { this.occurredAt = occurredAt; }
     public Instant getProcessedAt() { return processedAt; }
     public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
 }
@@ -0,0 +1,118 @@
+package org.misoenergy.les.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code kafka.consumer.group.lag{group,topic,partition}}: log-end offset minus committed offset, per partition,
+ * for the service's consumer group and the groups of its retry and dead-letter topics
+ * ({@code <group-id>-retry-0}, ..., {@code <group-id>-dlt}).
+ * <p>
+ * Read from the broker on a fixed delay rather than from the consumers' own fetch metrics, so the lag keeps being
+ * reported while a consumer is stuck, rebalancing or down, which is when it matters. Partitions the group has
+ * never committed are not reported; one that is no longer reported drops to zero.
+ */
+@Component
+public class ConsumerLagMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLagMetrics.class);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final MeterRegistry meterRegistry;
+    private final String groupId;
+    private final Map<String, AtomicLong> lagByPartition = new ConcurrentHashMap<>();
+    private AdminClient admin;
+
+    public ConsumerLagMetrics(KafkaAdmin kafkaAdmin,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.meterRegistry = meterRegistry;
+        this.groupId = groupId;
+    }
+
+    @Scheduled(fixedDelayString = "${les.kafka.lag.refresh-ms:15000}", initialDelayString = "${les.kafka.lag.refresh-ms:15000}")
+    public synchronized void refresh() {
+        try {
+            if (admin == null) admin = createAdmin();
+            Set<String> seen = new HashSet<>();
+            for (String group : groups()) {
+                Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                        .partitionsToOffsetAndMetadata().get(10, TimeUnit.SECONDS);
+                Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+                committed.forEach((tp, offset) -> {
+                    if (offset != null) latest.put(tp, OffsetSpec.latest());
+                });
+                if (latest.isEmpty()) continue;
+                Map<TopicPartition, ListOffsetsResultInfo> end = admin.listOffsets(latest).all().get(10, TimeUnit.SECONDS);
+                end.forEach((tp, info) -> {
+                    String key = group + '|' + tp;
+                    seen.add(key);
+                    lagGauge(key, group, tp).set(Math.max(0, info.offset() - committed.get(tp).offset()));
+                });
+            }
+            lagByPartition.forEach((key, lag) -> {
+                if (!seen.contains(key)) lag.set(0);
+            });
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.debug("Consumer lag refresh failed: {}", ex.getMessage());
+            close();
+        }
+    }
+
+    AdminClient createAdmin() {
+        return AdminClient.create(kafkaAdmin.getConfigurationProperties());
+    }
+
+    private List<String> groups() throws Exception {
+        return admin.listConsumerGroups().all().get(10, TimeUnit.SECONDS).stream()
+                .map(ConsumerGroupListing::groupId)
+                .filter(g -> g.equals(groupId) || g.startsWith(groupId + "-"))
+                .toList();
+    }
+
+    private AtomicLong lagGauge(String key, String group, TopicPartition tp) {
+        return lagByPartition.computeIfAbsent(key, k -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("kafka.consumer.group.lag", lag, AtomicLong::get)
+                    .tag("group", group)
+                    .tag("topic", tp.topic())
+                    .tag("partition", String.valueOf(tp.partition()))
+                    .baseUnit("records")
+                    .description("Records between the committed offset and the end of the partition")
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (admin != null) {
+            admin.close();
+            admin = null;
+        }
+    }
+}
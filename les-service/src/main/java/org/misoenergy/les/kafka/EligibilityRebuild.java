@@ -0,0 +1,248 @@
+package org.misoenergy.les.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.events.LmrWithdrawEligibilityEvent;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.misoenergy.les.service.EligibilityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rebuilds the eligibility read-model from the compacted topic without going through the listeners.
+ * <p>
+ * The eligibility containers are stopped and a standalone consumer reads every partition from the beginning up
+ * to the end offsets taken at the start. It keeps the newest state per {@link LMRWithdrawEligibility#cacheKey} in
+ * memory, by the same {@code (version, updatedAt)} watermark the listeners apply, and drops keys whose last record
+ * is a tombstone. {@link LMRWithdrawEligibilityRepository#replaceAll} then COPYs that state into shadow tables and
+ * swaps them in. The containers restart at the recorded end offsets ({@link EligibilityResumeOffsets}), so only
+ * records produced since the rebuild began are consumed again, and the {@link EligibilityCache} is warmed again
+ * from the new table.
+ * <p>
+ * The partitions of the stopped containers move to the other instances. So that nothing they apply is dropped
+ * by the swap, the read and the swap run in one transaction holding
+ * {@link LMRWithdrawEligibilityRepository#fenceWrites}: their eligibility upserts wait, uncommitted, and are
+ * applied to the new table afterwards. No group offset moves past the snapshot before it is live. A consumer
+ * that waits longer than {@code max.poll.interval.ms} leaves the group, and its records are redelivered.
+ * <p>
+ * Runs from {@code POST /api/admin/eligibility/rebuild}, and before the listeners start when
+ * {@code les.kafka.eligibility.rebuild.on-startup} is {@code always}, or {@code if-empty} and the table is empty.
+ */
+@Component
+public class EligibilityRebuild implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityRebuild.class);
+    private static final List<String> LISTENER_IDS = List.of("les-eligibility", "les-eligibility-batch");
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaListenerEndpointRegistry registry;
+    private final EventCodec eventCodec;
+    private final LMRWithdrawEligibilityRepository eligibilityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EligibilityResumeOffsets resumeOffsets;
+    private final EligibilityCache eligibilityCache;
+    private final String topic;
+    private final String onStartup;
+    private final int maxPollRecords;
+    private final Duration timeout;
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile boolean started;
+
+    public EligibilityRebuild(ConsumerFactory<Object, Object> consumerFactory,
+                              KafkaListenerEndpointRegistry registry,
+                              EventCodec eventCodec,
+                              LMRWithdrawEligibilityRepository eligibilityRepository,
+                              TransactionTemplate transactionTemplate,
+                              EligibilityResumeOffsets resumeOffsets,
+                              EligibilityCache eligibilityCache,
+                              @Value("${les.kafka.topics.eligibility}") String topic,
+                              @Value("${les.kafka.eligibility.rebuild.on-startup:if-empty}") String onStartup,
+                              @Value("${les.kafka.eligibility.rebuild.max-poll-records:10000}") int maxPollRecords,
+                              @Value("${les.kafka.eligibility.rebuild.timeout:PT30S}") Duration timeout) {
+        this.consumerFactory = consumerFactory;
+        this.registry = registry;
+        this.eventCodec = eventCodec;
+        this.eligibilityRepository = eligibilityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.resumeOffsets = resumeOffsets;
+        this.eligibilityCache = eligibilityCache;
+        this.topic = topic;
+        this.onStartup = onStartup.trim();
+        this.maxPollRecords = maxPollRecords;
+        this.timeout = timeout;
+    }
+
+    /** What one rebuild read and wrote. */
+    public record Result(long records, long skipped, int rows, Map<String, Long> endOffsets, long millis) {}
+
+    /**
+     * Rebuild now. Throws 409 when a rebuild is already running in this instance.
+     */
+    public Result rebuild() {
+        if (!running.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Eligibility rebuild already running");
+        }
+        List<MessageListenerContainer> stopped = new ArrayList<>();
+        try {
+            for (String id : LISTENER_IDS) {
+                MessageListenerContainer container = registry.getListenerContainer(id);
+                if (container != null && container.isRunning()) {
+                    container.stop();
+                    stopped.add(container);
+                }
+            }
+            return readAndReplace();
+        } finally {
+            stopped.forEach(MessageListenerContainer::start);
+            running.unlock();
+        }
+    }
+
+    private Result readAndReplace() {
+        long start = System.nanoTime();
+        // Other instances' eligibility writes wait from before the end offsets are taken until the swap commits
+        Loaded loaded = transactionTemplate.execute(status -> {
+            eligibilityRepository.fenceWrites();
+            return load();
+        });
+        resumeOffsets.resumeAt(loaded.end());
+        eligibilityCache.warm();
+        Map<String, Long> offsets = new HashMap<>();
+        loaded.end().forEach((tp, offset) -> offsets.put(tp.toString(), offset));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Eligibility read-model rebuilt: records={} skipped={} rows={} in {} ms",
+                loaded.records(), loaded.skipped(), loaded.rows(), millis);
+        return new Result(loaded.records(), loaded.skipped(), loaded.rows(), offsets, millis);
+    }
+
+    private record Loaded(Map<TopicPartition, Long> end, long records, long skipped, int rows) {}
+
+    /** Reads the topic up to its current end offsets and replaces the table; runs in the fenced transaction. */
+    private Loaded load() {
+        Map<String, EligibilityUpdate> latest = new HashMap<>();
+        Map<TopicPartition, Long> end;
+        long records = 0;
+        long skipped = 0;
+        try (Consumer<String, byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(topic, timeout).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            end = consumer.endOffsets(partitions, timeout);
+            consumer.seekToBeginning(partitions);
+            Set<TopicPartition> remaining = new HashSet<>(partitions);
+            long lastProgress = System.nanoTime();
+            while (true) {
+                remaining.removeIf(tp -> consumer.position(tp, timeout) >= end.get(tp));
+                if (remaining.isEmpty()) break;
+                ConsumerRecords<String, byte[]> polled = consumer.poll(Duration.ofMillis(500));
+                if (!polled.isEmpty()) {
+                    lastProgress = System.nanoTime();
+                } else if (System.nanoTime() - lastProgress > timeout.toNanos()) {
+                    throw new IllegalStateException("Eligibility rebuild made no progress reading " + remaining);
+                }
+                for (TopicPartition tp : polled.partitions()) {
+                    long stop = end.get(tp);
+                    for (ConsumerRecord<String, byte[]> record : polled.records(tp)) {
+                        if (record.offset() >= stop) break;
+                        records++;
+                        if (!collect(latest, record)) skipped++;
+                    }
+                }
+            }
+        }
+
+        int rows = eligibilityRepository.replaceAll(latest.values());
+        return new Loaded(end, records, skipped, rows);
+    }
+
+    /** Folds one record into {@code latest}; false when it could not be decoded. */
+    private boolean collect(Map<String, EligibilityUpdate> latest, ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            if (record.key() != null) latest.remove(record.key());
+            return true;
+        }
+        EligibilityUpdate update;
+        try {
+            update = LesKafkaConsumers.toUpdate(eventCodec.decode(record, LmrWithdrawEligibilityEvent.class));
+        } catch (Exception e) {
+            log.error("Eligibility rebuild, record {}-{}@{} skipped: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return false;
+        }
+        if (update == null) return false;
+        latest.merge(LMRWithdrawEligibility.cacheKey(update.planningYear(), update.lmrId()), update,
+                (kept, next) -> next.isNewerThan(kept) ? next : kept);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer() {
+        // Assigned, never subscribed, and never commits: it does not join the group
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, String.valueOf(8 * 1024 * 1024));
+        return (Consumer<String, byte[]>) (Consumer<?, ?>) consumerFactory.createConsumer(
+                null, "les-eligibility-rebuild", null, overrides);
+    }
+
+    /** Startup rebuild: runs before the listener containers start, so there is nothing to stop. */
+    @Override
+    public void start() {
+        started = true;
+        boolean rebuild = switch (onStartup) {
+            case "always" -> true;
+            case "if-empty" -> eligibilityRepository.count() == 0;
+            default -> false;
+        };
+        if (!rebuild) return;
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            log.warn("Eligibility rebuild on startup failed, the listeners consume from their committed offsets: {}",
+                    ex.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+}
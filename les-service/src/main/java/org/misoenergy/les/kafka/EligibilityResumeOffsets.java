@@ -0,0 +1,51 @@
+package org.misoenergy.les.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where the eligibility listener resumes after {@link EligibilityRebuild}: the end offsets the rebuilt snapshot
+ * covers. On assignment a partition with a pending offset ahead of its position is moved there, and the offset is
+ * committed by the group member itself (an outside commit is refused while the shared group has members).
+ * Each offset is used once and never moves a partition backwards: no member of the group can commit past the
+ * snapshot before it is swapped in, since the rebuild fences the eligibility writes until then.
+ * <p>
+ * Spring Boot sets a single {@link ConsumerAwareRebalanceListener} bean on every container factory it configures,
+ * so this reaches the eligibility containers of both factories in {@link KafkaConsumerConfig}.
+ */
+@Component
+class EligibilityResumeOffsets implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityResumeOffsets.class);
+
+    private final Map<TopicPartition, Long> pending = new ConcurrentHashMap<>();
+
+    void resumeAt(Map<TopicPartition, Long> offsets) {
+        pending.clear();
+        pending.putAll(offsets);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            Long offset = pending.remove(tp);
+            if (offset == null || consumer.position(tp) >= offset) continue;
+            consumer.seek(tp, offset);
+            commits.put(tp, new OffsetAndMetadata(offset));
+        }
+        if (commits.isEmpty()) return;
+        consumer.commitSync(commits);
+        log.info("Eligibility consumption resumes after the rebuild at {}", commits);
+    }
+}
@@ -0,0 +1,50 @@
+package org.misoenergy.les.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code kafka.event.latency{topic}}: time from an event's {@code occurredAt} (stamped by the producing service
+ * when it wrote the outbox row) until this service processed it, per consumed topic; each topic carries one event
+ * type. It covers the outbox relay, the broker, consumer lag and retry-topic back-off, so it is the end-to-end
+ * delay the other service's users see.
+ * <p>
+ * Recorded once per record a listener processed. Not recorded: records that fail, events skipped because their
+ * event id was already processed, and dead-letter replays. Eligibility has no event-id check, so every decoded
+ * eligibility record counts, including one the version watermark finds stale and one coalesced away in a batch:
+ * the read-model is at least as new as that event once the write commits. The two clocks are not the same: a
+ * negative difference (clock skew) is recorded as zero.
+ */
+@Component
+class EventLatency {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    EventLatency(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** {@code topic} is the topic the listener consumes, which keeps the tag's values bounded. */
+    void record(String topic, Instant occurredAt) {
+        if (occurredAt == null) return;
+        Duration latency = Duration.between(occurredAt, Instant.now());
+        timer(topic).record(latency.isNegative() ? Duration.ZERO : latency);
+    }
+
+    private Timer timer(String topic) {
+        return timers.computeIfAbsent(topic, t -> Timer.builder("kafka.event.latency")
+                .tag("topic", t)
+                .description("Time from event occurrence in the producing service to processing here")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(5))
+                .maximumExpectedValue(Duration.ofMinutes(30))
+                .register(meterRegistry));
+    }
+}
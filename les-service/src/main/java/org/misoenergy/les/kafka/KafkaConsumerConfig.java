@@ -0,0 +1,88 @@
+package org.misoenergy.les.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+
+import java.util.List;
+
+/**
+ * Listener containers. Each {@code @KafkaListener} runs {@code les.kafka.listener.concurrency} consumers (default:
+ * the topic partition count), one thread per assigned partition. Producers key every record by
+ * {@code planningYear:lmrId}, so all events of one LMR land on one partition and stay in order on one thread.
+ * With several instances in the group the partitions are shared out and surplus consumers sit idle.
+ * <p>
+ * Listeners on {@code les.kafka.retry.topics} retry without blocking their partition: a failed record is
+ * republished to {@code <topic>-retry-0}, {@code -retry-1}, ... with exponential backoff, and finally to
+ * {@code <topic>-dlt}, whose handler parks it in {@code dead_letter}. Records that cannot be decoded go to the
+ * DLT at once. Retries leave the key's order: later records of the same LMR may be processed first.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${les.kafka.listener.concurrency:${les.kafka.partitions:6}}")
+    private int concurrency;
+
+    /** Replaces Spring Boot's default factory of the same name, which runs one consumer per listener. */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Container factory for listeners that take a whole poll as a {@code List}; offsets are committed once per
+     * batch, after the listener returns.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Retry and dead-letter topics for the record listeners on {@code les.kafka.retry.topics}; created on startup
+     * with the main topics' partition count. Not for eligibility, whose batch listener cannot use them: it parks
+     * undecodable records itself.
+     */
+    @Bean
+    public RetryTopicConfiguration retryTopicConfiguration(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            @Value("${les.kafka.retry.topics}") List<String> topics,
+            @Value("${les.kafka.retry.attempts:4}") int attempts,
+            @Value("${les.kafka.retry.initial-interval-ms:1000}") long initialIntervalMs,
+            @Value("${les.kafka.retry.multiplier:5.0}") double multiplier,
+            @Value("${les.kafka.retry.max-interval-ms:60000}") long maxIntervalMs,
+            @Value("${les.kafka.partitions:6}") int partitions) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(topics.stream().map(String::trim).toList())
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialIntervalMs, multiplier, maxIntervalMs)
+                // Index suffixes keep the topic names stable when the intervals are tuned
+                .suffixTopicsWithIndexValues()
+                .traversingCauses(true)
+                .notRetryOn(List.of(JsonProcessingException.class, IllegalArgumentException.class))
+                // -1: the broker's default replication factor
+                .autoCreateTopicsWith(partitions, (short) -1)
+                .dltHandlerMethod("deadLetterService", "onDeadLetter")
+                .create(kafkaTemplate);
+    }
+}
@@ -1,37 +1,55 @@
 package org.misoenergy.les.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.misoenergy.les.deadletter.DeadLetterService;
+import org.misoenergy.les.events.EventCodec;
 import org.misoenergy.les.events.LmrWithdrawCompletedEvent;
 import org.misoenergy.les.events.LmrWithdrawEligibilityEvent;
 import org.misoenergy.les.events.LmrWithdrawRejectedEvent;
-import org.misoenergy.les.idempotency.ProcessedEvent;
-import org.misoenergy.les.idempotency.ProcessedEventRepository;
+import org.misoenergy.les.idempotency.IdempotencyService;
 import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.misoenergy.les.service.EligibilityCache;
 import org.misoenergy.les.service.EnrollmentService;
+import org.misoenergy.les.service.EnrollmentStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * LES consumes: eligibility (read-model), withdraw completed, withdraw rejected.
- * Idempotency by eventId to avoid duplicate application.
+ * Idempotency by eventId to avoid duplicate application; eligibility instead uses the per-LMR version watermark.
+ * <p>
+ * Eligibility has two listeners and {@code les.kafka.eligibility.batch} decides which one starts: the batch
+ * listener (default) coalesces a poll to the newest record per key and writes the survivors in one statement;
+ * the record listener applies one message per call. Both park records they cannot decode in {@code dead_letter};
+ * withdraw completed and rejected use retry topics instead (see {@link KafkaConsumerConfig}).
+ * Processed events are timed from their {@code occurredAt} by {@link EventLatency}, which says which ones count.
+ * Applied eligibility is written through to the {@link EligibilityCache} once the transaction commits, then pushed
+ * to {@link EnrollmentStream} subscribers.
  */
 @Component
 public class LesKafkaConsumers {
 
     private static final Logger log = LoggerFactory.getLogger(LesKafkaConsumers.class);
 
-    private final ObjectMapper objectMapper;
-    private final ProcessedEventRepository processedEventRepository;
+    private final EventCodec eventCodec;
+    private final IdempotencyService idempotencyService;
     private final LMRWithdrawEligibilityRepository eligibilityRepository;
+    private final EligibilityCache eligibilityCache;
+    private final EnrollmentStream enrollmentStream;
     private final EnrollmentService enrollmentService;
+    private final DeadLetterService deadLetterService;
+    private final EventLatency eventLatency;
 
     @Value("${les.kafka.topics.eligibility}")
     private String topicEligibility;
@@ -40,62 +58,110 @@ public class LesKafkaConsumers {
     @Value("${les.kafka.topics.withdraw-rejected}")
     private String topicWithdrawRejected;
 
-    public LesKafkaConsumers(ObjectMapper objectMapper,
-                            ProcessedEventRepository processedEventRepository,
+    public LesKafkaConsumers(EventCodec eventCodec,
+                            IdempotencyService idempotencyService,
                             LMRWithdrawEligibilityRepository eligibilityRepository,
-                            EnrollmentService enrollmentService) {
-        this.objectMapper = objectMapper;
-        this.processedEventRepository = processedEventRepository;
+                            EligibilityCache eligibilityCache,
+                            EnrollmentStream enrollmentStream,
+                            EnrollmentService enrollmentService,
+                            DeadLetterService deadLetterService,
+                            EventLatency eventLatency) {
+        this.eventCodec = eventCodec;
+        this.idempotencyService = idempotencyService;
         this.eligibilityRepository = eligibilityRepository;
+        this.eligibilityCache = eligibilityCache;
+        this.enrollmentStream = enrollmentStream;
         this.enrollmentService = enrollmentService;
+        this.deadLetterService = deadLetterService;
+        this.eventLatency = eventLatency;
     }
 
-    @KafkaListener(topics = "${les.kafka.topics.eligibility}", groupId = "${spring.kafka.consumer.group-id}")
+    @KafkaListener(id = "les-eligibility", topics = "${les.kafka.topics.eligibility}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            autoStartup = "#{!${les.kafka.eligibility.batch:true}}")
     @Transactional
-    public void onEligibility(String message) {
+    public void onEligibility(ConsumerRecord<String, byte[]> message) {
+        LmrWithdrawEligibilityEvent evt;
         try {
-            LmrWithdrawEligibilityEvent evt = objectMapper.readValue(message, LmrWithdrawEligibilityEvent.class);
-            String eventId = evt.getEventId();
-            if (eventId != null && processedEventRepository.existsByEventId(eventId)) {
-                return;
-            }
-            if (eventId != null) {
-                ProcessedEvent pe = new ProcessedEvent();
-                pe.setEventId(eventId);
-                processedEventRepository.save(pe);
-            }
-
-            String planningYear = evt.getPlanningYear();
-            String lmrId = evt.getLmrId();
-            if (planningYear == null || lmrId == null) return;
-
-            Optional<LMRWithdrawEligibility> existing = eligibilityRepository.findByPlanningYearAndLmrId(planningYear, lmrId);
-            LMRWithdrawEligibility el = existing.orElseGet(LMRWithdrawEligibility::new);
-            el.setPlanningYear(planningYear);
-            el.setLmrId(lmrId);
-            el.setCanWithdraw(Boolean.TRUE.equals(evt.getCanWithdraw()));
-            el.setReason(evt.getReason());
-            el.setBlockingFlags(evt.getBlockingFlags() != null ? evt.getBlockingFlags() : List.of());
-            if (evt.getUpdatedAt() != null) el.setUpdatedAt(evt.getUpdatedAt());
-            eligibilityRepository.save(el);
-            log.debug("Eligibility updated lmrId={} canWithdraw={}", lmrId, el.isCanWithdraw());
+            evt = eventCodec.decode(message, LmrWithdrawEligibilityEvent.class);
+        } catch (Exception e) {
+            // Parked rather than redelivered: it would not decode any better
+            deadLetterService.park(message, e);
+            return;
+        }
+        try {
+            EligibilityUpdate update = toUpdate(evt);
+            if (update == null) return;
+            applyEligibility(update);
+            eventLatency.record(topicEligibility, evt.getOccurredAt());
         } catch (Exception e) {
             log.error("Eligibility consumer error: {}", e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    @KafkaListener(id = "les-eligibility-batch", topics = "${les.kafka.topics.eligibility}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${les.kafka.eligibility.batch:true}",
+            properties = "max.poll.records=${les.kafka.eligibility.max-poll-records:2000}")
+    @Transactional
+    public void onEligibilityBatch(List<ConsumerRecord<String, byte[]>> messages) {
+        List<EligibilityUpdate> updates = new ArrayList<>(messages.size());
+        List<Instant> occurred = new ArrayList<>(messages.size());
+        for (ConsumerRecord<String, byte[]> message : messages) {
+            try {
+                LmrWithdrawEligibilityEvent evt = eventCodec.decode(message, LmrWithdrawEligibilityEvent.class);
+                EligibilityUpdate update = toUpdate(evt);
+                if (update != null) {
+                    updates.add(update);
+                    occurred.add(evt.getOccurredAt());
+                }
+            } catch (Exception e) {
+                // Parked rather than failing the batch: a redelivery would not parse any better
+                deadLetterService.park(message, e);
+            }
+        }
+        // Only the rows the watermark let through: at most one per key, and none that the stored state was newer than
+        List<EligibilityUpdate> applied = eligibilityRepository.applyAllIfNewer(updates);
+        for (EligibilityUpdate u : applied) {
+            eligibilityCache.applied(u);
+            enrollmentStream.eligibilityChanged(u.planningYear(), u.lmrId());
+        }
+        log.debug("Eligibility batch records={} applied={}", messages.size(), applied.size());
+        // Every decoded record counts, including those coalesced away (see EventLatency)
+        occurred.forEach(at -> eventLatency.record(topicEligibility, at));
+    }
+
+    private boolean applyEligibility(EligibilityUpdate update) {
+        // Last writer wins on (version, updatedAt); no processed_event row needed for this compacted topic
+        boolean applied = eligibilityRepository.applyIfNewer(update.planningYear(), update.lmrId(),
+                update.canWithdraw(), update.reason(), update.blockingFlags(), update.version(), update.updatedAt());
+        if (applied) {
+            eligibilityCache.applied(update);
+            enrollmentStream.eligibilityChanged(update.planningYear(), update.lmrId());
+        }
+        log.debug("Eligibility lmrId={} version={} canWithdraw={} applied={}",
+                update.lmrId(), update.version(), update.canWithdraw(), applied);
+        return applied;
+    }
+
+    static EligibilityUpdate toUpdate(LmrWithdrawEligibilityEvent evt) {
+        if (evt.getPlanningYear() == null || evt.getLmrId() == null) return null;
+        Instant updatedAt = evt.getUpdatedAt() != null ? evt.getUpdatedAt()
+                : evt.getOccurredAt() != null ? evt.getOccurredAt() : Instant.now();
+        return new EligibilityUpdate(evt.getPlanningYear(), evt.getLmrId(),
+                Boolean.TRUE.equals(evt.getCanWithdraw()), evt.getReason(),
+                evt.getBlockingFlags() != null ? evt.getBlockingFlags() : List.of(),
+                evt.getVersion() != null ? evt.getVersion() : 0L, updatedAt);
+    }
+
     @KafkaListener(topics = "${les.kafka.topics.withdraw-completed}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
-    public void onWithdrawCompleted(String message) {
+    public void onWithdrawCompleted(ConsumerRecord<String, byte[]> message) {
         try {
-            LmrWithdrawCompletedEvent evt = objectMapper.readValue(message, LmrWithdrawCompletedEvent.class);
-            if (processedEventRepository.existsByEventId(evt.getEventId())) return;
-            ProcessedEvent pe = new ProcessedEvent();
-            pe.setEventId(evt.getEventId());
-            processedEventRepository.save(pe);
-
-            enrollmentService.onWithdrawCompleted(evt.getEventId(), evt.getLmrId(), evt.getPlanningYear());
+            LmrWithdrawCompletedEvent evt = eventCodec.decode(message, LmrWithdrawCompletedEvent.class);
+            if (withdrawCompleted(evt, message)) eventLatency.record(topicWithdrawCompleted, evt.getOccurredAt());
         } catch (Exception e) {
             log.error("Withdraw completed consumer error: {}", e.getMessage());
             throw new RuntimeException(e);
@@ -104,18 +170,48 @@ public class LesKafkaConsumers {
 
     @KafkaListener(topics = "${les.kafka.topics.withdraw-rejected}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
-    public void onWithdrawRejected(String message) {
+    public void onWithdrawRejected(ConsumerRecord<String, byte[]> message) {
         try {
-            LmrWithdrawRejectedEvent evt = objectMapper.readValue(message, LmrWithdrawRejectedEvent.class);
-            if (processedEventRepository.existsByEventId(evt.getEventId())) return;
-            ProcessedEvent pe = new ProcessedEvent();
-            pe.setEventId(evt.getEventId());
-            processedEventRepository.save(pe);
-
-            enrollmentService.onWithdrawRejected(evt.getEventId(), evt.getLmrId(), evt.getPlanningYear(), evt.getReason());
+            LmrWithdrawRejectedEvent evt = eventCodec.decode(message, LmrWithdrawRejectedEvent.class);
+            if (withdrawRejected(evt, message)) eventLatency.record(topicWithdrawRejected, evt.getOccurredAt());
         } catch (Exception e) {
             log.error("Withdraw rejected consumer error: {}", e.getMessage());
             throw new RuntimeException(e);
         }
     }
+
+    private boolean withdrawCompleted(LmrWithdrawCompletedEvent evt, ConsumerRecord<String, byte[]> message) {
+        if (!idempotencyService.markProcessed(evt.getEventId(), evt.getOccurredAt(), message)) return false;
+        enrollmentService.onWithdrawCompleted(evt.getEventId(), evt.getLmrId(), evt.getPlanningYear());
+        return true;
+    }
+
+    private boolean withdrawRejected(LmrWithdrawRejectedEvent evt, ConsumerRecord<String, byte[]> message) {
+        if (!idempotencyService.markProcessed(evt.getEventId(), evt.getOccurredAt(), message)) return false;
+        enrollmentService.onWithdrawRejected(evt.getEventId(), evt.getLmrId(), evt.getPlanningYear(), evt.getReason());
+        return true;
+    }
+
+    /**
+     * Process a dead letter of one of these topics again, in the caller's transaction, the way its listener does.
+     * Unlike the listeners it throws when the record does not decode instead of parking it again, and it records no
+     * latency.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replay(ConsumerRecord<String, byte[]> message) throws IOException {
+        String topic = message.topic();
+        if (topic.equals(topicEligibility)) {
+            LmrWithdrawEligibilityEvent evt = eventCodec.decode(message, LmrWithdrawEligibilityEvent.class);
+            EligibilityUpdate update = toUpdate(evt);
+            if (update != null) applyEligibility(update);
+        } else if (topic.equals(topicWithdrawCompleted)) {
+            LmrWithdrawCompletedEvent evt = eventCodec.decode(message, LmrWithdrawCompletedEvent.class);
+            withdrawCompleted(evt, message);
+        } else if (topic.equals(topicWithdrawRejected)) {
+            LmrWithdrawRejectedEvent evt = eventCodec.decode(message, LmrWithdrawRejectedEvent.class);
+            withdrawRejected(evt, message);
+        } else {
+            throw new IllegalArgumentException("LES does not consume topic " + topic);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package org.misoenergy.les.outbox;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands outbox entries to the publisher as soon as the transaction that wrote them commits,
+ * instead of waiting for the next poll. Nothing is sent for a rolled-back transaction.
+ * <p>
+ * Best effort only: if the dispatch queue is full or the send fails, the entry stays unpublished and the
+ * {@link OutboxPublisher} poll picks it up. Set {@code les.outbox.dispatch-mode=poll} to disable; it is also
+ * off in {@code relay-mode=cdc}, where {@link OutboxCdcRelay} forwards every insert.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxPublisher publisher;
+    private final boolean immediate;
+    private final ExecutorService executor;
+
+    public OutboxDispatcher(OutboxPublisher publisher,
+                            @Value("${les.outbox.dispatch-mode:immediate}") String dispatchMode,
+                            @Value("${les.outbox.dispatch-threads:4}") int dispatchThreads,
+                            @Value("${les.outbox.relay-mode:poll}") String relayMode,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.publisher = publisher;
+        this.immediate = "immediate".equalsIgnoreCase(dispatchMode) && !"cdc".equalsIgnoreCase(relayMode);
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("outbox-dispatch-", 1).factory()
+                : r -> new Thread(r, "outbox-dispatch-" + n.incrementAndGet());
+        this.executor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10_000), threads);
+    }
+
+    /** Queue the entry for publishing once the current transaction commits. No-op in poll mode. */
+    public void dispatchAfterCommit(OutboxEntry entry) {
+        if (!immediate || entry.getId() == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pendingForCurrentTransaction().entries.add(entry);
+    }
+
+    private PendingDispatch pendingForCurrentTransaction() {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof PendingDispatch p && p.dispatcher() == this) return p;
+        }
+        PendingDispatch p = new PendingDispatch();
+        TransactionSynchronizationManager.registerSynchronization(p);
+        return p;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Collects the outbox entries written in one transaction; dispatches them together after commit. */
+    private class PendingDispatch implements TransactionSynchronization {
+
+        private final List<OutboxEntry> entries = new ArrayList<>();
+
+        OutboxDispatcher dispatcher() {
+            return OutboxDispatcher.this;
+        }
+
+        private List<Long> ids() {
+            return entries.stream().map(OutboxEntry::getId).toList();
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                executor.execute(() -> {
+                    try {
+                        publisher.publishEntries(entries);
+                    } catch (Exception ex) {
+                        log.warn("Outbox immediate dispatch failed for ids={}; poller will retry: {}", ids(), ex.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                log.debug("Outbox dispatch queue full; leaving ids={} to the poller", ids());
+            }
+        }
+    }
+}
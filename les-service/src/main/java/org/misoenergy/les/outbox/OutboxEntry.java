@@ -3,8 +3,15 @@ package org.misoenergy.les.outbox;
 import jakarta.persistence.*;
 import java.time.Instant;
 
+/**
+ * Outbox row. The table is range-partitioned by {@code created_at} (primary key is {@code (id, created_at)});
+ * both indexes are partial on {@code published_at IS NULL}.
+ */
 @Entity
-@Table(name = "outbox_entry", indexes = @Index(name = "idx_outbox_published", columnList = "published_at"))
+@Table(name = "outbox_entry", indexes = {
+        @Index(name = "idx_outbox_unpublished", columnList = "id"),
+        @Index(name = "idx_outbox_unpublished_key", columnList = "topic, message_key, id")
+})
 public class OutboxEntry {
 
     @Id
@@ -17,15 +24,26 @@ public class OutboxEntry {
     @Column(name = "message_key", length = 256)
     private String messageKey;
 
-    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    /** JSON payload; null when the topic is written in the binary encoding (then {@link #payloadBin} is set). */
+    @Column(name = "payload", columnDefinition = "text")
     private String payload;
 
+    @Column(name = "payload_bin")
+    private byte[] payloadBin;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
     @Column(name = "published_at")
     private Instant publishedAt;
 
+    /** Publisher instance currently holding this entry; only meaningful while the lease is live. */
+    @Column(name = "claimed_by", length = 128)
+    private String claimedBy;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
     @PrePersist
     void created() {
         if (createdAt == null) createdAt = Instant.now();
@@ -39,8 +57,14 @@ public class OutboxEntry {
     public void setMessageKey(String messageKey) { this.messageKey = messageKey; }
     public String getPayload() { return payload; }
     public void setPayload(String payload) { this.payload = payload; }
+    public byte[] getPayloadBin() { return payloadBin; }
+    public void setPayloadBin(byte[] payloadBin) { this.payloadBin = payloadBin; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public Instant getPublishedAt() { return publishedAt; }
     public void setPublishedAt(Instant publishedAt) { this.publishedAt = publishedAt; }
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+    public Instant getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
 }
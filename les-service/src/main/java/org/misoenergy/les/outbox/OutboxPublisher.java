@@ -1,50 +1,406 @@
 package org.misoenergy.les.outbox;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.misoenergy.les.events.EventCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Polls outbox for unpublished events and publishes to Kafka.
  * Ensures at-least-once delivery; consumers use idempotency.
+ * <p>
+ * Entries are published a page at a time and every acked id is marked published with a single UPDATE.
+ * A page is split by message key onto {@code lanes} workers ({@code hash(key) % lanes}); each lane pipelines
+ * its own sends (up to {@code max-in-flight} awaiting an ack), so a slow key only delays keys on its lane.
+ * Entries sharing a key are sent one after another on the same lane, so a failed send holds back the rest of
+ * that key until the next poll. {@code outbox.lane.queue.depth} and {@code outbox.lane.lag} are per lane.
+ * <p>
+ * Pages are claimed with a lease ({@link OutboxRepository#claimBatch}), so any number of service replicas can
+ * publish concurrently: each takes a disjoint set of keys and a crashed replica's lease simply expires.
+ * <p>
+ * In {@code immediate} dispatch mode most entries arrive through {@link #publishEntries} right after their
+ * transaction commits (see {@link OutboxDispatcher}); the scheduled poll is then only a recovery sweep.
+ * {@code outbox.published} counts the entries each path carried. Per topic, {@code outbox.send.latency} times
+ * send-to-ack, {@code outbox.publish.delay} times {@code created_at} to ack and {@code outbox.publish.failures}
+ * counts failed sends; {@code outbox.poll.batch.size} records claimed page sizes. Backlog gauges live in
+ * {@link OutboxBacklogMetrics}.
+ * <p>
+ * With {@code relay-mode=cdc} neither path runs: {@link OutboxCdcRelay} reads new rows from the WAL and only
+ * borrows {@link #sendBatch} from this class.
  */
 @Component
 public class OutboxPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+    /** Keys with deferred fast-path entries that are tracked; beyond this they are left to the sweep. */
+    private static final int MAX_DEFERRED_KEYS = 10_000;
 
     private final OutboxRepository outboxRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long sendTimeoutMs;
+    private final long leaseMs;
+    private final String owner;
+    private final boolean cdc;
+    private final Counter publishedImmediate;
+    private final Counter publishedPoll;
+    private final Counter deferredToPoll;
+    private final DistributionSummary pollBatchSize;
+    private final MeterRegistry meterRegistry;
+    private final Lane[] lanes;
+    /** Fast-path ids waiting for an older entry of their key, by {@link #chainOf chain}. */
+    private final Map<String, Set<Long>> deferred = new ConcurrentHashMap<>();
 
     public OutboxPublisher(OutboxRepository outboxRepository,
-                           KafkaTemplate<String, String> kafkaTemplate,
-                           ObjectMapper objectMapper) {
+                           KafkaTemplate<String, byte[]> kafkaTemplate,
+                           ObjectMapper objectMapper,
+                           @Value("${les.outbox.batch-size:500}") int batchSize,
+                           @Value("${les.outbox.max-in-flight:100}") int maxInFlight,
+                           @Value("${les.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                           @Value("${les.outbox.lease-ms:60000}") long leaseMs,
+                           @Value("${les.outbox.instance-id:${HOSTNAME:les-service}}") String instanceId,
+                           @Value("${les.outbox.relay-mode:poll}") String relayMode,
+                           @Value("${les.outbox.lanes:8}") int laneCount,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           MeterRegistry meterRegistry) {
         this.outboxRepository = outboxRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.owner = instanceId + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.cdc = "cdc".equalsIgnoreCase(relayMode);
+        this.publishedImmediate = meterRegistry.counter("outbox.published", "path", "immediate");
+        this.publishedPoll = meterRegistry.counter("outbox.published", "path", "poll");
+        this.deferredToPoll = meterRegistry.counter("outbox.dispatch.deferred");
+        this.pollBatchSize = DistributionSummary.builder("outbox.poll.batch.size")
+                .description("Entries claimed per poll page")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = new Lane(i, virtualThreads);
+            lanes[i] = lane;
+            Gauge.builder("outbox.lane.queue.depth", lane.queued, AtomicInteger::get)
+                    .tag("lane", String.valueOf(i))
+                    .description("Outbox entries handed to the lane and not yet sent or given up")
+                    .register(meterRegistry);
+            Gauge.builder("outbox.lane.lag", lane, Lane::lagMillis)
+                    .tag("lane", String.valueOf(i))
+                    .baseUnit("milliseconds")
+                    .description("Age of the oldest unfinished batch on the lane")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("outbox.lanes", lanes, l -> l.length).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Lane lane : lanes) lane.executor.shutdownNow();
     }
 
-    @Scheduled(fixedDelayString = "2000")
-    @Transactional
+    // Without an explicit poll-interval-ms: 2 s when the poll is the only path, 10 s when it only sweeps up after dispatch
+    @Scheduled(fixedDelayString = "${les.outbox.poll-interval-ms:#{'${les.outbox.dispatch-mode:immediate}'.equalsIgnoreCase('poll') ? 2000 : 10000}}")
     public void publishUnpublished() {
-        List<OutboxEntry> entries = outboxRepository.findUnpublished();
+        if (cdc) return;
+        drainUnpublished();
+    }
+
+    /** Claim and publish pages until the outbox has no claimable entries left (or a send fails). */
+    public void drainUnpublished() {
+        drain(() -> outboxRepository.claimBatch(owner, batchSize, leaseMs));
+    }
+
+    /** {@link #drainUnpublished} for the entries created before {@code before} only; see {@link OutboxCdcRelay}. */
+    public void drainCreatedBefore(LocalDateTime before) {
+        drain(() -> outboxRepository.claimBatchCreatedBefore(owner, batchSize, leaseMs, before));
+    }
+
+    private void drain(Supplier<List<OutboxEntry>> claim) {
+        List<OutboxEntry> page;
+        do {
+            page = claim.get();
+            if (page.isEmpty()) return;
+            pollBatchSize.record(page.size());
+            if (!publish(page, publishedPoll)) return;
+        } while (page.size() >= batchSize);
+    }
+
+    /**
+     * After-commit fast path: publish the given entries now if they can be claimed in key order.
+     * An entry behind an older unpublished entry of its key is remembered and claimed again as soon as this instance
+     * has published that key's older entries; anything else that cannot be claimed (leased elsewhere) is left to
+     * the poller.
+     */
+    public void publishEntries(Collection<OutboxEntry> written) {
+        Map<Long, String> chains = new HashMap<>();
+        for (OutboxEntry e : written) chains.put(e.getId(), chainOf(e));
+        claimAndPublish(chains);
+    }
+
+    private void claimAndPublish(Map<Long, String> chains) {
+        if (chains.isEmpty()) return;
+        // Deferred before claiming, so a key that clears meanwhile still finds these ids
+        chains.forEach(this::defer);
+        List<OutboxEntry> claimed = outboxRepository.claimByIds(chains.keySet(), owner, leaseMs);
+        for (OutboxEntry e : claimed) undefer(e.getId(), chainOf(e));
+        if (claimed.size() < chains.size()) {
+            deferredToPoll.increment(chains.size() - claimed.size());
+        }
+        if (!claimed.isEmpty()) publish(claimed, publishedImmediate);
+    }
+
+    /** Ordering chain of an entry (topic and key); null for entries without a key, which have none. */
+    private static String chainOf(OutboxEntry e) {
+        return e.getMessageKey() != null ? e.getTopic() + '\0' + e.getMessageKey() : null;
+    }
+
+    private void defer(Long id, String chain) {
+        if (chain == null || (deferred.size() >= MAX_DEFERRED_KEYS && !deferred.containsKey(chain))) return;
+        deferred.compute(chain, (k, ids) -> {
+            Set<Long> set = ids != null ? ids : new HashSet<>();
+            set.add(id);
+            return set;
+        });
+    }
+
+    private void undefer(Long id, String chain) {
+        if (chain == null) return;
+        deferred.computeIfPresent(chain, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /** Claim the deferred entries of every key that had an entry acked just now, instead of waiting for the sweep. */
+    private void redispatchDeferred(List<OutboxEntry> page, Set<Long> acked) {
+        if (deferred.isEmpty()) return;
+        Map<Long, String> ready = new HashMap<>();
+        for (OutboxEntry e : page) {
+            String chain = chainOf(e);
+            if (chain == null || !acked.contains(e.getId())) continue;
+            Set<Long> ids = deferred.remove(chain);
+            if (ids != null) ids.forEach(id -> ready.put(id, chain));
+        }
+        claimAndPublish(ready);
+    }
+
+    /** Send claimed entries in id order; returns false when anything was held back. */
+    private boolean publish(List<OutboxEntry> claimed, Counter published) {
+        List<OutboxEntry> page = new ArrayList<>(claimed);
+        page.sort(Comparator.comparing(OutboxEntry::getId));
+        List<Long> acked = sendBatch(page);
+        Set<Long> done = new HashSet<>(acked);
+        if (!acked.isEmpty()) {
+            outboxRepository.markPublished(acked, Instant.now());
+            published.increment(acked.size());
+        }
+        log.info("Outbox published {}/{} events", acked.size(), page.size());
+        if (acked.size() < page.size()) {
+            // Held-back entries go back to the pool so the next poll (on any instance) retries them in order
+            outboxRepository.releaseClaims(page.stream().map(OutboxEntry::getId).filter(id -> !done.contains(id)).toList(), owner);
+        }
+        if (!acked.isEmpty()) redispatchDeferred(page, done);
+        return acked.size() == page.size();
+    }
+
+    /**
+     * Send a page and return the ids the broker acked, in id order. The page is split onto lanes by key and
+     * the lanes send in parallel; this call waits for all of them.
+     */
+    List<Long> sendBatch(List<OutboxEntry> entries) {
+        Map<Integer, List<OutboxEntry>> byLane = new LinkedHashMap<>();
         for (OutboxEntry e : entries) {
+            byLane.computeIfAbsent(laneOf(e), k -> new ArrayList<>()).add(e);
+        }
+        List<CompletableFuture<List<Long>>> work = new ArrayList<>(byLane.size());
+        byLane.forEach((lane, laneEntries) -> work.add(lanes[lane].submit(laneEntries)));
+        List<Long> acked = new ArrayList<>(entries.size());
+        for (CompletableFuture<List<Long>> w : work) {
+            acked.addAll(w.join());
+        }
+        acked.sort(Comparator.naturalOrder());
+        return acked;
+    }
+
+    private int laneOf(OutboxEntry e) {
+        // Entries without a key have no ordering constraint; spread them by id
+        int hash = e.getMessageKey() != null ? e.getMessageKey().hashCode() : Long.hashCode(e.getId());
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    /**
+     * Send one lane's share of a page. Each wave sends the head entry of every key still pending; a key whose
+     * send fails is dropped so its later entries are not sent out of order.
+     */
+    private List<Long> sendChains(List<OutboxEntry> entries) {
+        Map<String, Deque<OutboxEntry>> byKey = new LinkedHashMap<>();
+        for (OutboxEntry e : entries) {
+            String key = e.getMessageKey() != null ? e.getMessageKey() : "\0" + e.getId();
+            byKey.computeIfAbsent(key, k -> new ArrayDeque<>()).add(e);
+        }
+        List<Long> acked = new ArrayList<>(entries.size());
+        while (!byKey.isEmpty()) {
+            List<Map.Entry<String, Deque<OutboxEntry>>> wave = new ArrayList<>(byKey.entrySet());
+            for (int from = 0; from < wave.size(); from += maxInFlight) {
+                List<Map.Entry<String, Deque<OutboxEntry>>> chunk = wave.subList(from, Math.min(from + maxInFlight, wave.size()));
+                List<CompletableFuture<?>> sends = new ArrayList<>(chunk.size());
+                for (Map.Entry<String, Deque<OutboxEntry>> chain : chunk) {
+                    sends.add(send(chain.getValue().peek()));
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+                for (int i = 0; i < chunk.size(); i++) {
+                    Map.Entry<String, Deque<OutboxEntry>> chain = chunk.get(i);
+                    OutboxEntry e = chain.getValue().poll();
+                    try {
+                        sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        acked.add(e.getId());
+                        if (e.getCreatedAt() != null) {
+                            Duration delay = Duration.between(e.getCreatedAt(), Instant.now());
+                            publishDelay(e.getTopic()).record(delay.isNegative() ? Duration.ZERO : delay);
+                        }
+                        log.debug("Outbox published event to {} key={}", e.getTopic(), e.getMessageKey());
+                        if (chain.getValue().isEmpty()) byKey.remove(chain.getKey());
+                    } catch (Exception ex) {
+                        if (ex instanceof InterruptedException) Thread.currentThread().interrupt();
+                        log.warn("Outbox publish failed for id={} topic={}: {}", e.getId(), e.getTopic(), ex.getMessage());
+                        meterRegistry.counter("outbox.publish.failures", "topic", e.getTopic()).increment();
+                        byKey.remove(chain.getKey());
+                    }
+                }
+            }
+        }
+        return acked;
+    }
+
+    private CompletableFuture<?> send(OutboxEntry e) {
+        long start = System.nanoTime();
+        try {
+            return kafkaTemplate.send(toRecord(e)).whenComplete((result, ex) -> {
+                if (ex == null) sendLatency(e.getTopic()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            });
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /** Binary rows go out as they are stored; JSON rows as UTF-8, the same bytes StringSerializer produced. */
+    static ProducerRecord<String, byte[]> toRecord(OutboxEntry e) {
+        boolean binary = e.getPayloadBin() != null;
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(e.getTopic(), e.getMessageKey(),
+                binary ? e.getPayloadBin() : e.getPayload().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(EventCodec.HEADER,
+                (binary ? EventCodec.BINARY : EventCodec.JSON).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private Timer sendLatency(String topic) {
+        return Timer.builder("outbox.send.latency")
+                .tag("topic", topic)
+                .description("Kafka send to broker ack")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private Timer publishDelay(String topic) {
+        return Timer.builder("outbox.publish.delay")
+                .tag("topic", topic)
+                .description("Outbox row created_at to broker ack")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /** One publishing worker. A key always maps to the same lane, so its entries are never sent concurrently. */
+    private final class Lane {
+
+        private final ExecutorService executor;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Long> startedAt = new ConcurrentLinkedQueue<>();
+
+        Lane(int index, boolean virtual) {
+            // Still one thread per lane (that is what keeps a key in order); a virtual one just parks on send().get()
+            this.executor = Executors.newSingleThreadExecutor(virtual
+                    ? Thread.ofVirtual().name("outbox-lane-" + index).factory()
+                    : r -> {
+                        Thread thread = new Thread(r, "outbox-lane-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        CompletableFuture<List<Long>> submit(List<OutboxEntry> entries) {
+            Long since = System.nanoTime();
+            queued.addAndGet(entries.size());
+            startedAt.add(since);
             try {
-                kafkaTemplate.send(e.getTopic(), e.getMessageKey(), e.getPayload()).get();
-                e.setPublishedAt(Instant.now());
-                outboxRepository.save(e);
-                log.info("Outbox published event to {} key={}", e.getTopic(), e.getMessageKey());
-            } catch (Exception ex) {
-                log.warn("Outbox publish failed for id={} topic={}: {}", e.getId(), e.getTopic(), ex.getMessage());
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return sendChains(entries);
+                    } finally {
+                        done(entries.size(), since);
+                    }
+                }, executor).exceptionally(ex -> {
+                    log.warn("Outbox lane failed: {}", ex.getMessage());
+                    return List.of();
+                });
+            } catch (RejectedExecutionException ex) {
+                done(entries.size(), since);
+                return CompletableFuture.completedFuture(List.of());
             }
         }
+
+        private void done(int count, Long since) {
+            queued.addAndGet(-count);
+            startedAt.remove(since);
+        }
+
+        double lagMillis() {
+            Long oldest = startedAt.peek();
+            return oldest == null ? 0 : (System.nanoTime() - oldest) / 1_000_000.0;
+        }
     }
 }
@@ -1,20 +1,21 @@
 package org.misoenergy.les.repository;
 
-import org.misoenergy.les.domain.EnrollmentStatus;
 import org.misoenergy.les.domain.LMREnrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.time.Instant;
 import java.util.Optional;
 
-public interface LMREnrollmentRepository extends JpaRepository<LMREnrollment, Long> {
+public interface LMREnrollmentRepository extends JpaRepository<LMREnrollment, Long>,
+        LMREnrollmentRepositoryCustom {
 
     Optional<LMREnrollment> findByLmrId(String lmrId);
 
     boolean existsByLmrId(String lmrId);
 
-    /** For admin view: enrollments where user requested withdraw but MECT rejected (edge case). */
-    List<LMREnrollment> findByStatusOrderByWithdrawRejectedAtDesc(EnrollmentStatus status);
-
-    List<LMREnrollment> findAllByOrderByUpdatedAtDesc();
+    /** Last change of an enrollment, without loading it; the version behind its ETag. */
+    @Query("SELECT e.updatedAt FROM LMREnrollment e WHERE e.lmrId = :lmrId")
+    Optional<Instant> findUpdatedAtByLmrId(@Param("lmrId") String lmrId);
 }
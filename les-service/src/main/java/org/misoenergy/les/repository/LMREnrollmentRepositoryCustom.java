@@ -0,0 +1,113 @@
+package org.misoenergy.les.repository;
+
+import org.misoenergy.les.domain.EnrollmentStatus;
+import org.misoenergy.les.domain.ResourceType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface LMREnrollmentRepositoryCustom {
+
+    /** Enrollment as listed: the columns the list views show, without loading the entity. */
+    record EnrollmentSummary(long id, String lmrId, String lmrName, String marketParticipantName,
+                             ResourceType resourceType, String planningYear, EnrollmentStatus status,
+                             Instant updatedAt) {}
+
+    /** Enrollment whose withdrawal MECT rejected, as the admin list shows it. */
+    record WithdrawRejectionRow(long id, String lmrId, String planningYear, String lmrName,
+                                String marketParticipantName, String reason, Instant withdrawRejectedAt,
+                                Instant updatedAt) {}
+
+    /**
+     * Enrollment joined to its eligibility read-model row, as exported. The eligibility fields are null when
+     * MECT has not sent one yet.
+     */
+    record EnrollmentExportRow(String lmrId, String lmrName, String marketParticipantName, ResourceType resourceType,
+                               String planningYear, EnrollmentStatus status, Instant createdAt, Instant updatedAt,
+                               String withdrawRejectReason, Instant withdrawRejectedAt, Boolean canWithdraw,
+                               String eligibilityReason, List<String> blockingFlags, Long eligibilityVersion,
+                               Instant eligibilityUpdatedAt) {}
+
+    /** One page of the export; the next page starts after {@code lastId}. Empty {@code rows} at the end. */
+    record ExportPage(List<EnrollmentExportRow> rows, long lastId) {}
+
+    /** What the eligibility message says while MECT has not sent an eligibility for the enrollment. */
+    String ELIGIBILITY_PENDING_MESSAGE = "Eligibility not yet available from MECT.";
+
+    /**
+     * Enrollment with its withdrawal eligibility, as the detail screen shows them. {@code canWithdraw} is false and
+     * {@code message} is {@link #ELIGIBILITY_PENDING_MESSAGE} while MECT has not sent an eligibility; the eligibility
+     * version and timestamp are then null.
+     */
+    record EnrollmentDetail(long id, String lmrId, String lmrName, String marketParticipantName,
+                            ResourceType resourceType, String planningYear, EnrollmentStatus status,
+                            Instant createdAt, Instant updatedAt, String withdrawRejectReason,
+                            Instant withdrawRejectedAt, boolean canWithdraw, String message,
+                            List<String> blockingFlags, Long eligibilityVersion, Instant eligibilityUpdatedAt) {}
+
+    /** New DRAFT enrollment, as bulk-imported. */
+    record EnrollmentDraft(String lmrId, String marketParticipantName, String lmrName, ResourceType resourceType,
+                           String planningYear) {}
+
+    /** Optional equality filters; null means no filter on that column. */
+    record EnrollmentFilter(EnrollmentStatus status, String planningYear, ResourceType resourceType,
+                            String participant) {}
+
+    /**
+     * Position in a listing ordered by {@code (timestamp, id)} descending: the next page starts right after it.
+     * Exchanged with clients as an opaque URL-safe token.
+     */
+    record Keyset(Instant at, long id) {
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((at + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** Throws IllegalArgumentException for a token that was not produced by {@link #encode}. */
+        public static Keyset decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 2) throw new IllegalArgumentException("Malformed cursor");
+                return new Keyset(Instant.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new IllegalArgumentException("Malformed cursor", ex);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} enrollments matching {@code filter}, newest {@code updatedAt} first, starting after
+     * {@code after} (null for the first page). One index range scan per page whatever the page's depth.
+     */
+    List<EnrollmentSummary> findPage(EnrollmentFilter filter, Keyset after, int limit);
+
+    /**
+     * Up to {@code limit} enrollments matching {@code filter} with an id above {@code afterId}, with their
+     * eligibility, in id order: one primary-key range scan per page. An export pages through the table with these
+     * short statements rather than holding a cursor, and its transaction, open while the client reads.
+     */
+    ExportPage findExportPage(EnrollmentFilter filter, long afterId, int limit);
+
+    /** The enrollment and its eligibility in one statement; empty when the LMR is not enrolled. */
+    Optional<EnrollmentDetail> findDetail(String lmrId);
+
+    /** Up to {@code limit} WITHDRAW_REJECTED enrollments, most recently rejected first, starting after {@code after}. */
+    List<WithdrawRejectionRow> findWithdrawRejectionPage(Keyset after, int limit);
+
+    /** Those of {@code lmrIds} that are already enrolled, in one query. */
+    Set<String> findExistingLmrIds(Collection<String> lmrIds);
+
+    /**
+     * Inserts the drafts as DRAFT enrollments in one statement. A row whose lmr id was taken since it was checked is
+     * skipped rather than failing the others; the result says, per draft, whether it was inserted. The lmr ids must be
+     * distinct.
+     */
+    boolean[] insertDrafts(List<EnrollmentDraft> drafts);
+}
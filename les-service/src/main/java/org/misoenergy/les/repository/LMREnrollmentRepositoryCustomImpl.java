@@ -0,0 +1,236 @@
+package org.misoenergy.les.repository;
+
+import org.misoenergy.les.domain.EnrollmentStatus;
+import org.misoenergy.les.domain.ResourceType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+class LMREnrollmentRepositoryCustomImpl implements LMREnrollmentRepositoryCustom {
+
+    // Each filter column leads a (column, updated_at, id) index, so a filtered page is still one range scan
+    private static final String SUMMARIES = """
+            SELECT id, lmr_id, lmr_name, market_participant_name, resource_type, planning_year, status, updated_at
+            FROM lmr_enrollment
+            WHERE true
+            """;
+    private static final String REJECTIONS = """
+            SELECT id, lmr_id, planning_year, lmr_name, market_participant_name, withdraw_reject_reason,
+                   withdraw_rejected_at, updated_at
+            FROM lmr_enrollment
+            WHERE status = 'WITHDRAW_REJECTED' AND withdraw_rejected_at IS NOT NULL
+            """;
+
+    // Enrollment joined to its eligibility; flags through the eligibility_id index, one short lookup per row
+    private static final String EXPORT = """
+            SELECT e.id, e.lmr_id, e.lmr_name, e.market_participant_name, e.resource_type, e.planning_year, e.status,
+                   e.created_at, e.updated_at, e.withdraw_reject_reason, e.withdraw_rejected_at,
+                   el.can_withdraw, el.reason AS eligibility_reason, el.version AS eligibility_version,
+                   el.updated_at AS eligibility_updated_at,
+                   ARRAY(SELECT f.flag FROM lmr_eligibility_blocking_flags f
+                         WHERE f.eligibility_id = el.id ORDER BY f.flag) AS blocking_flags
+            FROM lmr_enrollment e
+            LEFT JOIN lmr_withdraw_eligibility el ON el.planning_year = e.planning_year AND el.lmr_id = e.lmr_id
+            WHERE true
+            """;
+    private static final String DETAIL = EXPORT + " AND e.lmr_id = ?";
+
+    // One statement per chunk: the rows travel as column arrays, and RETURNING says which ones went in
+    private static final String INSERT_DRAFTS = """
+            INSERT INTO lmr_enrollment (lmr_id, market_participant_name, lmr_name, resource_type, planning_year,
+                                        status, created_at, updated_at)
+            SELECT d.lmr_id, d.market_participant_name, d.lmr_name, d.resource_type, d.planning_year, 'DRAFT', ?, ?
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+                 AS d(lmr_id, market_participant_name, lmr_name, resource_type, planning_year)
+            ON CONFLICT (lmr_id) DO NOTHING
+            RETURNING lmr_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LMREnrollmentRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<EnrollmentSummary> findPage(EnrollmentFilter filter, Keyset after, int limit) {
+        StringBuilder sql = new StringBuilder(SUMMARIES);
+        List<Object> args = new ArrayList<>();
+        appendFilter(sql, args, "", filter);
+        appendKeyset(sql, args, "updated_at", after);
+        sql.append(" ORDER BY updated_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new EnrollmentSummary(
+                rs.getLong("id"),
+                rs.getString("lmr_id"),
+                rs.getString("lmr_name"),
+                rs.getString("market_participant_name"),
+                ResourceType.valueOf(rs.getString("resource_type")),
+                rs.getString("planning_year"),
+                EnrollmentStatus.valueOf(rs.getString("status")),
+                rs.getTimestamp("updated_at").toInstant()), args.toArray());
+    }
+
+    @Override
+    public ExportPage findExportPage(EnrollmentFilter filter, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(EXPORT);
+        List<Object> args = new ArrayList<>();
+        appendFilter(sql, args, "e.", filter);
+        sql.append(" AND e.id > ? ORDER BY e.id LIMIT ?");
+        args.add(afterId);
+        args.add(limit);
+        List<EnrollmentExportRow> rows = new ArrayList<>(limit);
+        long[] lastId = {afterId};
+        jdbcTemplate.query(sql.toString(), (ResultSet rs) -> {
+            rows.add(exportRow(rs));
+            lastId[0] = rs.getLong("id");
+        }, args.toArray());
+        return new ExportPage(rows, lastId[0]);
+    }
+
+    private static EnrollmentExportRow exportRow(ResultSet rs) throws SQLException {
+        boolean eligible = rs.getObject("can_withdraw") != null;
+        Array flags = rs.getArray("blocking_flags");
+        return new EnrollmentExportRow(
+                rs.getString("lmr_id"),
+                rs.getString("lmr_name"),
+                rs.getString("market_participant_name"),
+                ResourceType.valueOf(rs.getString("resource_type")),
+                rs.getString("planning_year"),
+                EnrollmentStatus.valueOf(rs.getString("status")),
+                instant(rs, "created_at"),
+                instant(rs, "updated_at"),
+                rs.getString("withdraw_reject_reason"),
+                instant(rs, "withdraw_rejected_at"),
+                eligible ? rs.getBoolean("can_withdraw") : null,
+                rs.getString("eligibility_reason"),
+                eligible && flags != null ? Arrays.asList((String[]) flags.getArray()) : List.of(),
+                eligible ? rs.getLong("eligibility_version") : null,
+                instant(rs, "eligibility_updated_at"));
+    }
+
+    @Override
+    public Optional<EnrollmentDetail> findDetail(String lmrId) {
+        return jdbcTemplate.query(DETAIL, (rs, i) -> {
+            boolean eligible = rs.getObject("can_withdraw") != null;
+            String reason = rs.getString("eligibility_reason");
+            Array flags = rs.getArray("blocking_flags");
+            return new EnrollmentDetail(
+                    rs.getLong("id"),
+                    rs.getString("lmr_id"),
+                    rs.getString("lmr_name"),
+                    rs.getString("market_participant_name"),
+                    ResourceType.valueOf(rs.getString("resource_type")),
+                    rs.getString("planning_year"),
+                    EnrollmentStatus.valueOf(rs.getString("status")),
+                    instant(rs, "created_at"),
+                    instant(rs, "updated_at"),
+                    rs.getString("withdraw_reject_reason"),
+                    instant(rs, "withdraw_rejected_at"),
+                    eligible && rs.getBoolean("can_withdraw"),
+                    eligible ? (reason != null ? reason : "") : ELIGIBILITY_PENDING_MESSAGE,
+                    eligible && flags != null ? Arrays.asList((String[]) flags.getArray()) : List.of(),
+                    eligible ? rs.getLong("eligibility_version") : null,
+                    instant(rs, "eligibility_updated_at"));
+        }, lmrId).stream().findFirst();
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts != null ? ts.toInstant() : null;
+    }
+
+    @Override
+    public List<WithdrawRejectionRow> findWithdrawRejectionPage(Keyset after, int limit) {
+        StringBuilder sql = new StringBuilder(REJECTIONS);
+        List<Object> args = new ArrayList<>();
+        appendKeyset(sql, args, "withdraw_rejected_at", after);
+        sql.append(" ORDER BY withdraw_rejected_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new WithdrawRejectionRow(
+                rs.getLong("id"),
+                rs.getString("lmr_id"),
+                rs.getString("planning_year"),
+                rs.getString("lmr_name"),
+                rs.getString("market_participant_name"),
+                rs.getString("withdraw_reject_reason"),
+                rs.getTimestamp("withdraw_rejected_at").toInstant(),
+                rs.getTimestamp("updated_at").toInstant()), args.toArray());
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> args, String alias, EnrollmentFilter filter) {
+        if (filter.status() != null) {
+            sql.append(" AND ").append(alias).append("status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.planningYear() != null) {
+            sql.append(" AND ").append(alias).append("planning_year = ?");
+            args.add(filter.planningYear());
+        }
+        if (filter.resourceType() != null) {
+            sql.append(" AND ").append(alias).append("resource_type = ?");
+            args.add(filter.resourceType().name());
+        }
+        if (filter.participant() != null) {
+            sql.append(" AND ").append(alias).append("market_participant_name = ?");
+            args.add(filter.participant());
+        }
+    }
+
+    /** Row comparison, so Postgres continues the index scan at the cursor instead of filtering two columns. */
+    private static void appendKeyset(StringBuilder sql, List<Object> args, String column, Keyset after) {
+        if (after == null) return;
+        sql.append(" AND (").append(column).append(", id) < (?, ?)");
+        args.add(Timestamp.from(after.at()));
+        args.add(after.id());
+    }
+
+    @Override
+    public Set<String> findExistingLmrIds(Collection<String> lmrIds) {
+        Set<String> existing = new HashSet<>();
+        if (lmrIds.isEmpty()) return existing;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT lmr_id FROM lmr_enrollment WHERE lmr_id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("varchar", lmrIds.toArray()));
+            return ps;
+        }, (ResultSet rs) -> {
+            existing.add(rs.getString(1));
+        });
+        return existing;
+    }
+
+    @Override
+    public boolean[] insertDrafts(List<EnrollmentDraft> drafts) {
+        boolean[] inserted = new boolean[drafts.size()];
+        if (drafts.isEmpty()) return inserted;
+        Timestamp now = Timestamp.from(Instant.now());
+        Set<String> created = new HashSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_DRAFTS);
+            ps.setTimestamp(1, now);
+            ps.setTimestamp(2, now);
+            ps.setArray(3, con.createArrayOf("varchar", drafts.stream().map(EnrollmentDraft::lmrId).toArray()));
+            ps.setArray(4, con.createArrayOf("varchar", drafts.stream().map(EnrollmentDraft::marketParticipantName).toArray()));
+            ps.setArray(5, con.createArrayOf("varchar", drafts.stream().map(EnrollmentDraft::lmrName).toArray()));
+            ps.setArray(6, con.createArrayOf("varchar", drafts.stream().map(d -> d.resourceType().name()).toArray()));
+            ps.setArray(7, con.createArrayOf("varchar", drafts.stream().map(EnrollmentDraft::planningYear).toArray()));
+            return ps;
+        }, (ResultSet rs) -> {
+            created.add(rs.getString(1));
+        });
+        for (int i = 0; i < inserted.length; i++) inserted[i] = created.contains(drafts.get(i).lmrId());
+        return inserted;
+    }
+}
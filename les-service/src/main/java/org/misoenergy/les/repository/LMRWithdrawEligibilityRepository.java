@@ -5,7 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface LMRWithdrawEligibilityRepository extends JpaRepository<LMRWithdrawEligibility, Long> {
+public interface LMRWithdrawEligibilityRepository extends JpaRepository<LMRWithdrawEligibility, Long>,
+        LMRWithdrawEligibilityRepositoryCustom {
 
     Optional<LMRWithdrawEligibility> findByPlanningYearAndLmrId(String planningYear, String lmrId);
 }
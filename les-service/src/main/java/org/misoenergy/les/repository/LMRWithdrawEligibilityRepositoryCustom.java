@@ -0,0 +1,48 @@
+package org.misoenergy.les.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface LMRWithdrawEligibilityRepositoryCustom {
+
+    /** One eligibility state as received from MECT; {@code version} 0 for events that carry none. */
+    record EligibilityUpdate(String planningYear, String lmrId, boolean canWithdraw, String reason,
+                             List<String> blockingFlags, long version, Instant updatedAt) {
+
+        /** Watermark order: {@code version} first, then {@code updatedAt}. */
+        public boolean isNewerThan(EligibilityUpdate other) {
+            return version != other.version ? version > other.version : updatedAt.isAfter(other.updatedAt);
+        }
+    }
+
+    /**
+     * Last-writer-wins upsert of one eligibility state, including its blocking flags, in a single statement.
+     * Applied only when {@code (version, updatedAt)} is greater than the stored watermark; returns false for a
+     * stale or repeated event.
+     */
+    boolean applyIfNewer(String planningYear, String lmrId, boolean canWithdraw, String reason,
+                         List<String> blockingFlags, long version, Instant updatedAt);
+
+    /**
+     * Same watermark rule as {@link #applyIfNewer} for many states at once: only the newest update per
+     * {@code (planningYear, lmrId)} is kept and the survivors are upserted in one statement.
+     * Returns the updates actually written, i.e. the survivors newer than the stored state, in no particular order.
+     */
+    List<EligibilityUpdate> applyAllIfNewer(Collection<EligibilityUpdate> updates);
+
+    /**
+     * Blocks {@link #applyIfNewer} and {@link #applyAllIfNewer} in every instance until the calling transaction
+     * ends, so nothing is written to a table that {@link #replaceAll} is about to drop. Waits for the upserts
+     * already running; must run in a transaction.
+     */
+    void fenceWrites();
+
+    /**
+     * Replaces the whole read-model with {@code snapshot} (one state per {@code (planningYear, lmrId)}).
+     * The rows are COPYed into shadow tables, indexed there, and swapped in under a brief exclusive lock, so
+     * readers see either the old or the new table. Takes {@link #fenceWrites} first. Must run in a transaction;
+     * returns the rows loaded.
+     */
+    int replaceAll(Collection<EligibilityUpdate> snapshot);
+}
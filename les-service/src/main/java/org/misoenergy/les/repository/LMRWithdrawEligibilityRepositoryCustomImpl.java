@@ -0,0 +1,297 @@
+package org.misoenergy.les.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class LMRWithdrawEligibilityRepositoryCustomImpl implements LMRWithdrawEligibilityRepositoryCustom {
+
+    // Flags are replaced only when the row was written: the DELETE and INSERT both join on the upsert's RETURNING
+    private static final String UPSERT = """
+            WITH applied AS (
+                INSERT INTO lmr_withdraw_eligibility AS t (planning_year, lmr_id, can_withdraw, reason, updated_at, version)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (planning_year, lmr_id) DO UPDATE
+                SET can_withdraw = excluded.can_withdraw, reason = excluded.reason,
+                    updated_at = excluded.updated_at, version = excluded.version
+                WHERE (excluded.version, excluded.updated_at) > (t.version, t.updated_at)
+                RETURNING t.id
+            ), cleared AS (
+                DELETE FROM lmr_eligibility_blocking_flags f USING applied WHERE f.eligibility_id = applied.id
+            )
+            """;
+    private static final String APPLY_IF_NEWER = UPSERT + """
+            , flagged AS (
+                INSERT INTO lmr_eligibility_blocking_flags (eligibility_id, flag)
+                SELECT applied.id, flag FROM applied, unnest(?::varchar[]) AS flag
+            )
+            SELECT count(*) FROM applied
+            """;
+    // One statement per poll: the states travel as column arrays, their flags as (ordinal, flag) pairs, and
+    // RETURNING names the rows the watermark let through
+    private static final String APPLY_ALL = """
+            WITH input AS (
+                SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::boolean[], ?::varchar[], ?::timestamp[], ?::bigint[])
+                    WITH ORDINALITY AS u(planning_year, lmr_id, can_withdraw, reason, updated_at, version, ord)
+            ), applied AS (
+                INSERT INTO lmr_withdraw_eligibility AS t (planning_year, lmr_id, can_withdraw, reason, updated_at, version)
+                SELECT planning_year, lmr_id, can_withdraw, reason, updated_at, version FROM input
+                ON CONFLICT (planning_year, lmr_id) DO UPDATE
+                SET can_withdraw = excluded.can_withdraw, reason = excluded.reason,
+                    updated_at = excluded.updated_at, version = excluded.version
+                WHERE (excluded.version, excluded.updated_at) > (t.version, t.updated_at)
+                RETURNING t.id, t.planning_year, t.lmr_id
+            ), cleared AS (
+                DELETE FROM lmr_eligibility_blocking_flags f USING applied WHERE f.eligibility_id = applied.id
+            ), flagged AS (
+                INSERT INTO lmr_eligibility_blocking_flags (eligibility_id, flag)
+                SELECT applied.id, fl.flag
+                FROM unnest(?::bigint[], ?::varchar[]) AS fl(ord, flag)
+                JOIN input ON input.ord = fl.ord
+                JOIN applied ON applied.planning_year = input.planning_year AND applied.lmr_id = input.lmr_id
+            )
+            SELECT planning_year, lmr_id FROM applied
+            """;
+    private static final String TABLE = "lmr_withdraw_eligibility";
+    private static final String FLAGS_TABLE = "lmr_eligibility_blocking_flags";
+    // Shadow tables, and the constraints and indexes built on them, carry this suffix until the swap
+    private static final String SHADOW = "_rebuild";
+    private static final int COPY_CHUNK = 1 << 16;
+    // Upserts hold it shared, a rebuild exclusively from before it reads the topic until its swap commits
+    private static final String WRITE_FENCE = "hashtext('" + TABLE + SHADOW + "')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LMRWithdrawEligibilityRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean applyIfNewer(String planningYear, String lmrId, boolean canWithdraw, String reason,
+                                List<String> blockingFlags, long version, Instant updatedAt) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + WRITE_FENCE + ")");
+        Long applied = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(APPLY_IF_NEWER);
+            Array flags = con.createArrayOf("varchar", blockingFlags.toArray());
+            ps.setString(1, planningYear);
+            ps.setString(2, lmrId);
+            ps.setBoolean(3, canWithdraw);
+            ps.setString(4, reason);
+            ps.setTimestamp(5, Timestamp.from(updatedAt));
+            ps.setLong(6, version);
+            ps.setArray(7, flags);
+            return ps;
+        }, rs -> rs.next() ? rs.getLong(1) : 0L);
+        return applied != null && applied > 0;
+    }
+
+    @Override
+    public List<EligibilityUpdate> applyAllIfNewer(Collection<EligibilityUpdate> updates) {
+        List<EligibilityUpdate> survivors = newestPerKey(updates);
+        if (survivors.isEmpty()) return survivors;
+        int n = survivors.size();
+        String[] planningYears = new String[n];
+        String[] lmrIds = new String[n];
+        Boolean[] canWithdraw = new Boolean[n];
+        String[] reasons = new String[n];
+        Timestamp[] updatedAts = new Timestamp[n];
+        Long[] versions = new Long[n];
+        List<Long> flagOrdinals = new ArrayList<>();
+        List<String> flags = new ArrayList<>();
+        Map<String, EligibilityUpdate> byKey = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            EligibilityUpdate u = survivors.get(i);
+            planningYears[i] = u.planningYear();
+            lmrIds[i] = u.lmrId();
+            canWithdraw[i] = u.canWithdraw();
+            reasons[i] = u.reason();
+            updatedAts[i] = Timestamp.from(u.updatedAt());
+            versions[i] = u.version();
+            for (String flag : u.blockingFlags()) {
+                flagOrdinals.add(i + 1L);
+                flags.add(flag);
+            }
+            byKey.put(u.planningYear() + ":" + u.lmrId(), u);
+        }
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + WRITE_FENCE + ")");
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_ALL);
+            ps.setArray(1, con.createArrayOf("varchar", planningYears));
+            ps.setArray(2, con.createArrayOf("varchar", lmrIds));
+            ps.setArray(3, con.createArrayOf("bool", canWithdraw));
+            ps.setArray(4, con.createArrayOf("varchar", reasons));
+            ps.setArray(5, con.createArrayOf("timestamp", updatedAts));
+            ps.setArray(6, con.createArrayOf("int8", versions));
+            ps.setArray(7, con.createArrayOf("int8", flagOrdinals.toArray(new Long[0])));
+            ps.setArray(8, con.createArrayOf("varchar", flags.toArray(new String[0])));
+            return ps;
+        }, (rs, i) -> byKey.get(rs.getString("planning_year") + ":" + rs.getString("lmr_id")));
+    }
+
+    /** Newest update per (planningYear, lmrId) by (version, updatedAt), in first-seen key order. */
+    static List<EligibilityUpdate> newestPerKey(Collection<EligibilityUpdate> updates) {
+        Map<String, EligibilityUpdate> newest = new LinkedHashMap<>();
+        for (EligibilityUpdate u : updates) {
+            newest.merge(u.planningYear() + ":" + u.lmrId(), u,
+                    (kept, next) -> next.isNewerThan(kept) ? next : kept);
+        }
+        return new ArrayList<>(newest.values());
+    }
+
+    @Override
+    public void fenceWrites() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + WRITE_FENCE + ")");
+    }
+
+    @Override
+    public int replaceAll(Collection<EligibilityUpdate> snapshot) {
+        // Also serializes rebuilds across instances; the shadow table names are shared
+        fenceWrites();
+        String sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, TABLE);
+        long firstId = jdbcTemplate.queryForObject("SELECT nextval(?::regclass)", Long.class, sequence);
+
+        // Constraints and indexes are built after the load, which is much faster than maintaining them row by row
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + FLAGS_TABLE + SHADOW + ", " + TABLE + SHADOW);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + SHADOW + " (LIKE " + TABLE + " INCLUDING ALL EXCLUDING INDEXES)");
+        jdbcTemplate.execute("CREATE TABLE " + FLAGS_TABLE + SHADOW + " (LIKE " + FLAGS_TABLE + " INCLUDING ALL EXCLUDING INDEXES)");
+        int rows = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> copy(con, snapshot, firstId));
+        List<String[]> constraints = new ArrayList<>(keyConstraints(TABLE));
+        constraints.addAll(keyConstraints(FLAGS_TABLE));
+        List<String[]> indexes = new ArrayList<>(plainIndexes(TABLE));
+        indexes.addAll(plainIndexes(FLAGS_TABLE));
+        for (String[] c : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + c[0] + SHADOW + " ADD CONSTRAINT " + c[1] + SHADOW + " "
+                    + c[2].replace("REFERENCES " + TABLE + "(", "REFERENCES " + TABLE + SHADOW + "("));
+        }
+        for (String[] i : indexes) {
+            jdbcTemplate.execute(i[2]
+                    .replaceFirst("INDEX " + i[1] + " ", "INDEX " + i[1] + SHADOW + " ")
+                    .replaceFirst(" ON (ONLY )?(\\w+\\.)?" + i[0] + " ", " ON " + i[0] + SHADOW + " "));
+        }
+        jdbcTemplate.execute("ANALYZE " + TABLE + SHADOW + ", " + FLAGS_TABLE + SHADOW);
+
+        // The swap: readers block only for these catalog changes, and see the old tables until commit
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + ", " + FLAGS_TABLE + " IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY NONE");
+        jdbcTemplate.execute("DROP TABLE " + FLAGS_TABLE + ", " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + SHADOW + " RENAME TO " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + FLAGS_TABLE + SHADOW + " RENAME TO " + FLAGS_TABLE);
+        for (String[] c : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + c[0] + " RENAME CONSTRAINT " + c[1] + SHADOW + " TO " + c[1]);
+        }
+        for (String[] i : indexes) {
+            jdbcTemplate.execute("ALTER INDEX " + i[1] + SHADOW + " RENAME TO " + i[1]);
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY " + TABLE + ".id");
+        if (rows > 0) {
+            jdbcTemplate.queryForObject("SELECT setval(?::regclass, greatest(?, (SELECT last_value FROM " + sequence + ")))",
+                    Long.class, sequence, firstId + rows - 1);
+        }
+        return rows;
+    }
+
+    private static int copy(Connection con, Collection<EligibilityUpdate> snapshot, long firstId) throws SQLException {
+        var copyApi = con.unwrap(PGConnection.class).getCopyAPI();
+        ZoneId zone = ZoneId.systemDefault();
+        StringBuilder buffer = new StringBuilder(COPY_CHUNK + 1024);
+
+        CopyIn rows = copyApi.copyIn("COPY " + TABLE + SHADOW
+                + " (id, planning_year, lmr_id, can_withdraw, reason, updated_at, version) FROM STDIN");
+        long id = firstId;
+        try {
+            for (EligibilityUpdate u : snapshot) {
+                buffer.append(id++).append('\t');
+                copyText(buffer, u.planningYear()).append('\t');
+                copyText(buffer, u.lmrId()).append('\t');
+                buffer.append(u.canWithdraw() ? 't' : 'f').append('\t');
+                copyText(buffer, u.reason()).append('\t');
+                // Same local-time rendering as setTimestamp(Timestamp.from(...)) in applyIfNewer
+                buffer.append(LocalDateTime.ofInstant(u.updatedAt(), zone)).append('\t');
+                buffer.append(u.version()).append('\n');
+                if (buffer.length() >= COPY_CHUNK) flush(rows, buffer);
+            }
+            flush(rows, buffer);
+            rows.endCopy();
+        } finally {
+            if (rows.isActive()) rows.cancelCopy();
+        }
+
+        // Second pass over the same iteration order, so the ids line up with the rows above
+        CopyIn flags = copyApi.copyIn("COPY " + FLAGS_TABLE + SHADOW + " (eligibility_id, flag) FROM STDIN");
+        id = firstId;
+        try {
+            for (EligibilityUpdate u : snapshot) {
+                for (String flag : u.blockingFlags()) {
+                    buffer.append(id).append('\t');
+                    copyText(buffer, flag).append('\n');
+                }
+                id++;
+                if (buffer.length() >= COPY_CHUNK) flush(flags, buffer);
+            }
+            flush(flags, buffer);
+            flags.endCopy();
+        } finally {
+            if (flags.isActive()) flags.cancelCopy();
+        }
+        return Math.toIntExact(id - firstId);
+    }
+
+    private static void flush(CopyIn copy, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /** Appends {@code value} in COPY text format: {@code \N} for null, backslash escapes for the delimiters. */
+    static StringBuilder copyText(StringBuilder out, String value) {
+        if (value == null) return out.append("\\N");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        return out;
+    }
+
+    /** Primary, unique and foreign keys of {@code table} as {table, name, definition}, referenced keys first. */
+    private List<String[]> keyConstraints(String table) {
+        return jdbcTemplate.query("""
+                SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint
+                WHERE conrelid = ?::regclass AND contype IN ('p', 'u', 'f')
+                ORDER BY CASE contype WHEN 'p' THEN 0 WHEN 'u' THEN 1 ELSE 2 END, conname
+                """, (rs, n) -> new String[] { table, rs.getString(1), rs.getString(2) }, table);
+    }
+
+    /** Indexes of {@code table} not backing a constraint, as {table, name, CREATE INDEX statement}. */
+    private List<String[]> plainIndexes(String table) {
+        return jdbcTemplate.query("""
+                SELECT c.relname, pg_get_indexdef(c.oid) FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indrelid = ?::regclass
+                  AND NOT EXISTS (SELECT 1 FROM pg_constraint k WHERE k.conindid = i.indexrelid AND k.conrelid = i.indrelid)
+                ORDER BY c.relname
+                """, (rs, n) -> new String[] { table, rs.getString(1), rs.getString(2) }, table);
+    }
+}
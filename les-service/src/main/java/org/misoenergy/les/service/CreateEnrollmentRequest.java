@@ -3,18 +3,23 @@ package org.misoenergy.les.service;
 import org.misoenergy.les.domain.ResourceType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public class CreateEnrollmentRequest {
 
     @NotBlank
+    @Size(max = 64)
     private String lmrId;
     @NotBlank
+    @Size(max = 256)
     private String marketParticipantName;
     @NotBlank
+    @Size(max = 256)
     private String lmrName;
     @NotNull
     private ResourceType resourceType;
     @NotBlank
+    @Size(max = 16)
     private String planningYear;
 
     public String getLmrId() { return lmrId; }
@@ -0,0 +1,181 @@
+package org.misoenergy.les.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.misoenergy.les.repository.LMREnrollmentRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-process eligibility read-model cache, keyed by {@link LMRWithdrawEligibility#cacheKey}, plus the
+ * {@code lmrId -> planningYear} lookup needed to build the key (fixed once an enrollment exists). Polling
+ * {@code GET /api/lmrs/{id}/withdraw-eligibility} is then answered without a query.
+ * <p>
+ * Entries only move forward on the {@code (version, updatedAt)} watermark, so a late load or an older event never
+ * replaces a newer state. "No eligibility yet" is cached too. The listeners write through after their transaction
+ * commits; the batch listener only refreshes keys already cached, since it does not learn which updates the
+ * database kept. Each instance only consumes its own partitions, so with several instances an entry for another
+ * instance's partition can be stale for up to {@code les.eligibility.cache.ttl}; MECT remains the authority and
+ * rejects a withdraw that is no longer allowed.
+ * <p>
+ * Warmed with the most recently updated rows on startup and after a rebuild. Metrics: {@code cache.gets{result}},
+ * {@code cache.size} and {@code cache.evictions} with {@code cache=les.eligibility}, and
+ * {@code les.eligibility.cache.hit.ratio}.
+ */
+@Component
+public class EligibilityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EligibilityCache.class);
+    private static final String WARM_QUERY = """
+            SELECT e.planning_year, e.lmr_id, e.can_withdraw, e.reason, e.updated_at, e.version,
+                   array_remove(array_agg(f.flag), NULL) AS flags
+            FROM lmr_withdraw_eligibility e
+            LEFT JOIN lmr_eligibility_blocking_flags f ON f.eligibility_id = e.id
+            GROUP BY e.id
+            ORDER BY e.updated_at DESC
+            LIMIT ?
+            """;
+
+    private final LMREnrollmentRepository enrollmentRepository;
+    private final LMRWithdrawEligibilityRepository eligibilityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxSize;
+    private final Cache<String, Optional<LMRWithdrawEligibility>> eligibility;
+    private final Cache<String, String> planningYears;
+
+    public EligibilityCache(LMREnrollmentRepository enrollmentRepository,
+                            LMRWithdrawEligibilityRepository eligibilityRepository,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${les.eligibility.cache.max-size:100000}") long maxSize,
+                            @Value("${les.eligibility.cache.ttl:PT30S}") Duration ttl) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.eligibilityRepository = eligibilityRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSize = maxSize;
+        this.eligibility = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.planningYears = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, eligibility, "les.eligibility");
+        Gauge.builder("les.eligibility.cache.hit.ratio", eligibility, c -> c.stats().hitRate())
+                .description("Share of eligibility lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    /** Eligibility of an enrollment; empty when the enrollment is unknown or MECT has not sent one yet. */
+    public Optional<LMRWithdrawEligibility> get(String lmrId) {
+        String planningYear = planningYears.get(lmrId,
+                id -> enrollmentRepository.findByLmrId(id).map(e -> e.getPlanningYear()).orElse(null));
+        return planningYear != null ? get(planningYear, lmrId) : Optional.empty();
+    }
+
+    public Optional<LMRWithdrawEligibility> get(String planningYear, String lmrId) {
+        return eligibility.get(LMRWithdrawEligibility.cacheKey(planningYear, lmrId),
+                key -> eligibilityRepository.findByPlanningYearAndLmrId(planningYear, lmrId).map(EligibilityCache::copy));
+    }
+
+    /** An update the database applied: cached after the current transaction commits. */
+    public void applied(EligibilityUpdate update) {
+        afterCommit(() -> eligibility.asMap().merge(key(update), Optional.of(toEntity(update)), EligibilityCache::newest));
+    }
+
+    /** Drops every entry and loads the {@code max-size} most recently updated rows. */
+    public void warm() {
+        eligibility.invalidateAll();
+        try {
+            long start = System.nanoTime();
+            int[] loaded = {0};
+            jdbcTemplate.query(WARM_QUERY, rs -> {
+                Array flags = rs.getArray("flags");
+                EligibilityUpdate update = new EligibilityUpdate(rs.getString("planning_year"), rs.getString("lmr_id"),
+                        rs.getBoolean("can_withdraw"), rs.getString("reason"),
+                        flags != null ? Arrays.asList((String[]) flags.getArray()) : List.of(),
+                        rs.getLong("version"), rs.getTimestamp("updated_at").toInstant());
+                eligibility.asMap().merge(key(update), Optional.of(toEntity(update)), EligibilityCache::newest);
+                loaded[0]++;
+            }, maxSize);
+            log.info("Eligibility cache warmed with {} rows in {} ms", loaded[0], (System.nanoTime() - start) / 1_000_000);
+        } catch (DataAccessException ex) {
+            log.warn("Eligibility cache warm-up failed, entries load on first read: {}", ex.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        warm();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Newer of two cached states by watermark; a cached "none yet" is older than any state. */
+    private static Optional<LMRWithdrawEligibility> newest(Optional<LMRWithdrawEligibility> cached,
+                                                           Optional<LMRWithdrawEligibility> next) {
+        if (cached.isEmpty()) return next;
+        if (next.isEmpty()) return cached;
+        LMRWithdrawEligibility a = cached.get();
+        LMRWithdrawEligibility b = next.get();
+        boolean newer = b.getVersion() != a.getVersion() ? b.getVersion() > a.getVersion()
+                : b.getUpdatedAt().isAfter(a.getUpdatedAt());
+        return newer ? next : cached;
+    }
+
+    private static String key(EligibilityUpdate update) {
+        return LMRWithdrawEligibility.cacheKey(update.planningYear(), update.lmrId());
+    }
+
+    /** Detached copy with its own flag list, safe to share between requests. */
+    private static LMRWithdrawEligibility copy(LMRWithdrawEligibility source) {
+        return toEntity(new EligibilityUpdate(source.getPlanningYear(), source.getLmrId(), source.isCanWithdraw(),
+                source.getReason(), source.getBlockingFlags(), source.getVersion(), source.getUpdatedAt()));
+    }
+
+    private static LMRWithdrawEligibility toEntity(EligibilityUpdate update) {
+        LMRWithdrawEligibility e = new LMRWithdrawEligibility();
+        e.setPlanningYear(update.planningYear());
+        e.setLmrId(update.lmrId());
+        e.setCanWithdraw(update.canWithdraw());
+        e.setReason(update.reason());
+        e.setBlockingFlags(Collections.unmodifiableList(new ArrayList<>(update.blockingFlags())));
+        e.setVersion(update.version());
+        e.setUpdatedAt(update.updatedAt());
+        return e;
+    }
+}
@@ -0,0 +1,369 @@
+package org.misoenergy.les.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.misoenergy.les.domain.ResourceType;
+import org.misoenergy.les.repository.LMREnrollmentRepository;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentDraft;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk enrollment import: participants onboard hundreds of LMRs in one upload instead of one
+ * {@code POST /api/lmrs} each.
+ * <p>
+ * Rows are parsed and validated as they are read, {@code les.import.batch-size} at a time. Each chunk takes one
+ * query to find the lmr ids already enrolled and one multi-row insert for the rest, as DRAFT, in its own transaction.
+ * The chunk's results are then written to the report. Memory holds one chunk whatever the upload size.
+ * The report has one NDJSON line per row, in upload order, followed by a summary line. The chunks committed before
+ * a failure stay imported.
+ */
+@Service
+public class EnrollmentImport {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentImport.class);
+    static final List<String> CSV_COLUMNS = List.of("lmrId", "marketParticipantName", "lmrName", "resourceType",
+            "planningYear");
+
+    public enum Format { NDJSON, CSV }
+
+    public enum Outcome { CREATED, DUPLICATE, INVALID }
+
+    /** Report line: {@code line} is where the row starts in the upload (the CSV header is line 1). */
+    public record RowResult(long line, String lmrId, Outcome result, String message) {}
+
+    public record Summary(long rows, long created, long duplicates, long invalid) {}
+
+    private final LMREnrollmentRepository enrollmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader rowReader;
+    private final ObjectWriter reportWriter;
+    private final int batchSize;
+    private final Map<Outcome, Counter> rows = new EnumMap<>(Outcome.class);
+
+    public EnrollmentImport(LMREnrollmentRepository enrollmentRepository,
+                            TransactionTemplate transactionTemplate,
+                            Validator validator,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${les.import.batch-size:1000}") int batchSize) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(CreateEnrollmentRequest.class);
+        this.reportWriter = objectMapper.writer();
+        this.batchSize = batchSize;
+        for (Outcome outcome : Outcome.values()) {
+            rows.put(outcome, Counter.builder("les.import.rows")
+                    .tag("result", outcome.name().toLowerCase())
+                    .description("Bulk-imported enrollment rows by outcome")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Imports the upload in {@code in} and writes the report to {@code out} without closing it. A CSV upload
+     * without the required header columns is rejected with 400 before anything is written.
+     */
+    public Summary read(Format format, InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Writer report = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        RowSource source = format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+        long[] totals = new long[Outcome.values().length];
+        List<Row> chunk = new ArrayList<>(batchSize);
+        Row row;
+        while ((row = source.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                write(report, importChunk(chunk), totals);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) write(report, importChunk(chunk), totals);
+        Summary summary = new Summary(Arrays.stream(totals).sum(), totals[Outcome.CREATED.ordinal()],
+                totals[Outcome.DUPLICATE.ordinal()], totals[Outcome.INVALID.ordinal()]);
+        report.write(reportWriter.writeValueAsString(Map.of("summary", summary)));
+        report.write('\n');
+        report.flush();
+        log.info("Enrollment import format={} rows={} created={} duplicates={} invalid={} in {} ms", format,
+                summary.rows(), summary.created(), summary.duplicates(), summary.invalid(),
+                (System.nanoTime() - start) / 1_000_000);
+        return summary;
+    }
+
+    /** Duplicates within the chunk, then against the table, set-wise; the rest inserted in one statement. */
+    private List<RowResult> importChunk(List<Row> chunk) {
+        RowResult[] results = new RowResult[chunk.size()];
+        List<Integer> candidates = new ArrayList<>(chunk.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Row row = chunk.get(i);
+            if (row.error() != null) {
+                results[i] = new RowResult(row.line(), row.lmrId(), Outcome.INVALID, row.error());
+            } else if (!seen.add(row.request().getLmrId())) {
+                results[i] = new RowResult(row.line(), row.lmrId(), Outcome.DUPLICATE, "Repeated in this upload");
+            } else {
+                candidates.add(i);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> existing = enrollmentRepository.findExistingLmrIds(seen);
+            List<Integer> fresh = new ArrayList<>(candidates.size());
+            List<EnrollmentDraft> drafts = new ArrayList<>(candidates.size());
+            for (int i : candidates) {
+                Row row = chunk.get(i);
+                if (existing.contains(row.lmrId())) {
+                    results[i] = new RowResult(row.line(), row.lmrId(), Outcome.DUPLICATE, "LMR already exists");
+                } else {
+                    CreateEnrollmentRequest r = row.request();
+                    fresh.add(i);
+                    drafts.add(new EnrollmentDraft(r.getLmrId(), r.getMarketParticipantName(), r.getLmrName(),
+                            r.getResourceType(), r.getPlanningYear()));
+                }
+            }
+            boolean[] inserted = enrollmentRepository.insertDrafts(drafts);
+            for (int j = 0; j < fresh.size(); j++) {
+                Row row = chunk.get(fresh.get(j));
+                results[fresh.get(j)] = inserted[j]
+                        ? new RowResult(row.line(), row.lmrId(), Outcome.CREATED, null)
+                        : new RowResult(row.line(), row.lmrId(), Outcome.DUPLICATE, "LMR already exists");
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private void write(Writer report, List<RowResult> results, long[] totals) throws IOException {
+        for (RowResult result : results) {
+            report.write(reportWriter.writeValueAsString(result));
+            report.write('\n');
+            totals[result.result().ordinal()]++;
+            rows.get(result.result()).increment();
+        }
+        report.flush();
+    }
+
+    /** A parsed row, or the reason it could not be used. */
+    private record Row(long line, String lmrId, CreateEnrollmentRequest request, String error) {}
+
+    private interface RowSource {
+        /** Next non-blank row, or null at the end of the upload. */
+        Row next() throws IOException;
+    }
+
+    private Row validated(long line, CreateEnrollmentRequest request) {
+        Set<ConstraintViolation<CreateEnrollmentRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) return new Row(line, request.getLmrId(), request, null);
+        String error = violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        return new Row(line, request.getLmrId(), null, error);
+    }
+
+    /** One JSON object per line, with the fields of {@code POST /api/lmrs}. */
+    private final class NdjsonRows implements RowSource {
+
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+                try {
+                    CreateEnrollmentRequest request = rowReader.readValue(text);
+                    if (request == null) return new Row(line, null, null, "Malformed row: null");
+                    return validated(line, request);
+                } catch (JsonProcessingException ex) {
+                    return new Row(line, null, null, "Malformed row: " + ex.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * RFC 4180 with a header naming the {@link #CSV_COLUMNS}, in any order; quoted fields may span lines. A record is
+     * at most {@link #MAX_RECORD_CHARS} characters, so an unclosed quote cannot buffer the rest of the upload.
+     */
+    private final class CsvRows implements RowSource {
+
+        // Well above the longest valid row: the @Size limits of CreateEnrollmentRequest sum to 592, quotes double that
+        private static final int MAX_RECORD_CHARS = 4096;
+        private static final List<String> TOO_LONG = List.of();
+        private static final int NONE = -2;
+
+        private final BufferedReader reader;
+        private final int[] columns = new int[CSV_COLUMNS.size()];
+        private long line;
+        // A character read ahead (after a quote or a carriage return) and not used yet
+        private int pending = NONE;
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = record();
+            if (header == null) header = List.of();
+            // Spreadsheet exports often start with a byte order mark
+            if (!header.isEmpty()) header.set(0, header.get(0).replace("\uFEFF", ""));
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) index.put(header.get(i).trim(), i);
+            for (int c = 0; c < columns.length; c++) {
+                Integer i = index.get(CSV_COLUMNS.get(c));
+                if (i == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "CSV header must name the columns " + String.join(",", CSV_COLUMNS));
+                }
+                columns[c] = i;
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields;
+            long first;
+            do {
+                first = line + 1;
+                fields = record();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+            if (fields == TOO_LONG) {
+                return new Row(first, null, null,
+                        "Row longer than " + MAX_RECORD_CHARS + " characters, or a quoted field that is not closed");
+            }
+            CreateEnrollmentRequest request = new CreateEnrollmentRequest();
+            request.setLmrId(field(fields, 0));
+            request.setMarketParticipantName(field(fields, 1));
+            request.setLmrName(field(fields, 2));
+            request.setPlanningYear(field(fields, 4));
+            String resourceType = field(fields, 3);
+            if (resourceType != null) {
+                try {
+                    request.setResourceType(ResourceType.valueOf(resourceType.trim()));
+                } catch (IllegalArgumentException ex) {
+                    return new Row(first, request.getLmrId(), null,
+                            "resourceType must be one of " + Arrays.toString(ResourceType.values()));
+                }
+            }
+            return validated(first, request);
+        }
+
+        private String field(List<String> fields, int column) {
+            int i = columns[column];
+            if (i >= fields.size() || fields.get(i).isEmpty()) return null;
+            return fields.get(i);
+        }
+
+        /**
+         * Fields of the next record, {@link #TOO_LONG} when it runs past {@link #MAX_RECORD_CHARS} or ends inside a
+         * quoted field, or null at the end of the upload. Such a record, typically a quote that is never closed, is
+         * taken to be its first line only: reading resumes on the line after it, so the rows it swallowed are kept.
+         */
+        private List<String> record() throws IOException {
+            long start = line;
+            int pendingAtStart = pending;
+            reader.mark(2 * MAX_RECORD_CHARS + 2);
+            int c = read();
+            if (c == -1) return null;
+            line++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int length = 0;
+            for (; c != -1; c = read()) {
+                if (++length > MAX_RECORD_CHARS) return rewindPastFirstLine(start, pendingAtStart);
+                if (c == '\r' || c == '\n') {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') pending = next;
+                    }
+                    if (!quoted) break;
+                    // Line break inside a quoted field: the record goes on
+                    line++;
+                    field.append('\n');
+                } else if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                    } else {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            pending = next;
+                        }
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (quoted) return rewindPastFirstLine(start, pendingAtStart);
+            fields.add(field.toString());
+            return fields;
+        }
+
+        /** Back to where the record began, then past its first line; the record is reported as {@link #TOO_LONG}. */
+        private List<String> rewindPastFirstLine(long start, int pendingAtStart) throws IOException {
+            reader.reset();
+            pending = pendingAtStart;
+            line = start + 1;
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && c != '\n' && c != '\r');
+            if (c == '\r') {
+                int next = read();
+                if (next != '\n') pending = next;
+            }
+            return TOO_LONG;
+        }
+
+        private int read() throws IOException {
+            if (pending == NONE) return reader.read();
+            int c = pending;
+            pending = NONE;
+            return c;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package org.misoenergy.les.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.misoenergy.les.domain.*;
+import org.misoenergy.les.events.EventCodec;
 import org.misoenergy.les.events.LmrApprovedEvent;
 import org.misoenergy.les.events.LmrWithdrawRequestedEvent;
+import org.misoenergy.les.outbox.OutboxDispatcher;
 import org.misoenergy.les.outbox.OutboxEntry;
 import org.misoenergy.les.outbox.OutboxRepository;
 import org.misoenergy.les.repository.LMREnrollmentRepository;
-import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentDetail;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentFilter;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentSummary;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.Keyset;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.WithdrawRejectionRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,21 +24,29 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 @Service
 public class EnrollmentService {
 
     private static final Logger log = LoggerFactory.getLogger(EnrollmentService.class);
+    /** Upper bound on a listing page, whatever the client asks for. */
+    static final int MAX_PAGE_SIZE = 500;
 
     private final LMREnrollmentRepository enrollmentRepository;
-    private final LMRWithdrawEligibilityRepository eligibilityRepository;
+    private final EligibilityCache eligibilityCache;
     private final OutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher outboxDispatcher;
+    private final EventCodec eventCodec;
+    private final MeterRegistry meterRegistry;
+    private final EnrollmentStream enrollmentStream;
 
     @Value("${les.kafka.topics.approved}")
     private String topicApproved;
@@ -39,13 +54,19 @@ public class EnrollmentService {
     private String topicWithdrawRequested;
 
     public EnrollmentService(LMREnrollmentRepository enrollmentRepository,
-                             LMRWithdrawEligibilityRepository eligibilityRepository,
+                             EligibilityCache eligibilityCache,
                              OutboxRepository outboxRepository,
-                             ObjectMapper objectMapper) {
+                             OutboxDispatcher outboxDispatcher,
+                             EventCodec eventCodec,
+                             MeterRegistry meterRegistry,
+                             EnrollmentStream enrollmentStream) {
         this.enrollmentRepository = enrollmentRepository;
-        this.eligibilityRepository = eligibilityRepository;
+        this.eligibilityCache = eligibilityCache;
         this.outboxRepository = outboxRepository;
-        this.objectMapper = objectMapper;
+        this.outboxDispatcher = outboxDispatcher;
+        this.eventCodec = eventCodec;
+        this.meterRegistry = meterRegistry;
+        this.enrollmentStream = enrollmentStream;
     }
 
     @Transactional
@@ -71,7 +92,9 @@ public class EnrollmentService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only DRAFT can be submitted");
         }
         e.setStatus(EnrollmentStatus.SUBMITTED);
-        return enrollmentRepository.save(e);
+        enrollmentRepository.save(e);
+        enrollmentStream.enrollmentChanged(e);
+        return e;
     }
 
     @Transactional
@@ -83,6 +106,7 @@ public class EnrollmentService {
         }
         e.setStatus(EnrollmentStatus.APPROVED);
         enrollmentRepository.save(e);
+        enrollmentStream.enrollmentChanged(e);
 
         LmrApprovedEvent evt = new LmrApprovedEvent();
         evt.setEventId(UUID.randomUUID().toString());
@@ -110,7 +134,7 @@ public class EnrollmentService {
                     "Only APPROVED enrollments can be withdrawn; current: " + e.getStatus());
         }
 
-        Optional<LMRWithdrawEligibility> opt = eligibilityRepository.findByPlanningYearAndLmrId(e.getPlanningYear(), e.getLmrId());
+        Optional<LMRWithdrawEligibility> opt = eligibilityCache.get(e.getPlanningYear(), e.getLmrId());
         if (opt.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Eligibility unknown; MECT may not have processed approval yet.");
         }
@@ -123,6 +147,7 @@ public class EnrollmentService {
 
         e.setStatus(EnrollmentStatus.WITHDRAWN_REQUESTED);
         enrollmentRepository.save(e);
+        enrollmentStream.enrollmentChanged(e);
 
         LmrWithdrawRequestedEvent evt = new LmrWithdrawRequestedEvent();
         evt.setEventId(UUID.randomUUID().toString());
@@ -136,18 +161,21 @@ public class EnrollmentService {
     }
 
     public Optional<LMRWithdrawEligibility> getEligibility(String lmrId) {
-        return enrollmentRepository.findByLmrId(lmrId)
-                .flatMap(en -> eligibilityRepository.findByPlanningYearAndLmrId(en.getPlanningYear(), en.getLmrId()));
+        return eligibilityCache.get(lmrId);
     }
 
     private void writeToOutbox(String topic, String key, Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
             OutboxEntry entry = new OutboxEntry();
             entry.setTopic(topic);
             entry.setMessageKey(key);
-            entry.setPayload(json);
+            if (eventCodec.isBinary(topic)) {
+                entry.setPayloadBin(eventCodec.toBinary(payload));
+            } else {
+                entry.setPayload(eventCodec.toJson(payload));
+            }
             outboxRepository.save(entry);
+            outboxDispatcher.dispatchAfterCommit(entry);
         } catch (JsonProcessingException ex) {
             throw new RuntimeException("Outbox serialization failed", ex);
         }
@@ -158,9 +186,11 @@ public class EnrollmentService {
     public void onWithdrawCompleted(String eventId, String lmrId, String planningYear) {
         enrollmentRepository.findByLmrId(lmrId).ifPresent(e -> {
             if (e.getStatus() == EnrollmentStatus.WITHDRAWN_REQUESTED) {
+                recordTurnaround(e, "completed");
                 e.setStatus(EnrollmentStatus.WITHDRAWN);
                 e.setWithdrawRejectReason(null);
                 enrollmentRepository.save(e);
+                enrollmentStream.enrollmentChanged(e);
                 log.info("Withdraw completed lmrId={} eventId={}", lmrId, eventId);
             }
         });
@@ -174,26 +204,76 @@ public class EnrollmentService {
     public void onWithdrawRejected(String eventId, String lmrId, String planningYear, String reason) {
         enrollmentRepository.findByLmrId(lmrId).ifPresent(e -> {
             if (e.getStatus() == EnrollmentStatus.WITHDRAWN_REQUESTED) {
+                recordTurnaround(e, "rejected");
                 e.setStatus(EnrollmentStatus.WITHDRAW_REJECTED);
                 e.setWithdrawRejectReason(reason);
                 e.setWithdrawRejectedAt(Instant.now());
                 enrollmentRepository.save(e);
+                enrollmentStream.enrollmentChanged(e);
                 log.info("Withdraw rejected lmrId={} reason={} eventId={}", lmrId, reason, eventId);
             }
         });
     }
 
+    /**
+     * {@code withdraw.turnaround{outcome}}: from the user's withdraw request to MECT's answer being applied here,
+     * i.e. LES outbox, MECT consumer, MECT outbox and LES consumer together. Nothing else updates an enrollment
+     * while it is WITHDRAWN_REQUESTED, so its {@code updatedAt} is still the time of the request.
+     */
+    private void recordTurnaround(LMREnrollment e, String outcome) {
+        if (e.getUpdatedAt() == null) return;
+        Duration turnaround = Duration.between(e.getUpdatedAt(), Instant.now());
+        Timer.builder("withdraw.turnaround")
+                .tag("outcome", outcome)
+                .description("Withdraw request to MECT outcome applied in LES")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(meterRegistry)
+                .record(turnaround.isNegative() ? Duration.ZERO : turnaround);
+    }
+
     public Optional<LMREnrollment> getByLmrId(String lmrId) {
         return enrollmentRepository.findByLmrId(lmrId);
     }
 
-    public List<LMREnrollment> listAll() {
-        return enrollmentRepository.findAllByOrderByUpdatedAtDesc();
+    /** When the enrollment last changed; empty when it does not exist. */
+    public Optional<Instant> getUpdatedAt(String lmrId) {
+        return enrollmentRepository.findUpdatedAtByLmrId(lmrId);
+    }
+
+    /** The enrollment with its eligibility, read in one statement; empty when it does not exist. */
+    public Optional<EnrollmentDetail> getDetail(String lmrId) {
+        return enrollmentRepository.findDetail(lmrId);
+    }
+
+    /** Enrollments matching {@code filter}, most recently updated first; {@code cursor} null for the first page. */
+    public KeysetPage<EnrollmentSummary> list(EnrollmentFilter filter, String cursor, int limit) {
+        return page(cursor, limit, (after, n) -> enrollmentRepository.findPage(filter, after, n),
+                s -> new Keyset(s.updatedAt(), s.id()));
     }
 
     /** For admins: enrollments where withdrawal was rejected by MECT (edge case—state changed after button was shown). */
-    public List<LMREnrollment> listWithdrawRejected() {
-        return enrollmentRepository.findByStatusOrderByWithdrawRejectedAtDesc(EnrollmentStatus.WITHDRAW_REJECTED);
+    public KeysetPage<WithdrawRejectionRow> listWithdrawRejected(String cursor, int limit) {
+        return page(cursor, limit, enrollmentRepository::findWithdrawRejectionPage,
+                r -> new Keyset(r.withdrawRejectedAt(), r.id()));
+    }
+
+    /** Reads one row past the page to learn whether another page follows. 400 for a cursor we did not issue. */
+    private static <T> KeysetPage<T> page(String cursor, int limit,
+                                          BiFunction<Keyset, Integer, List<T>> query,
+                                          Function<T, Keyset> keyOf) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Keyset after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : Keyset.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        List<T> rows = query.apply(after, size + 1);
+        if (rows.size() <= size) return new KeysetPage<>(rows, null);
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(List.copyOf(items), keyOf.apply(items.get(size - 1)).encode());
     }
 
     /**
@@ -213,6 +293,7 @@ public class EnrollmentService {
         e.setWithdrawRejectReason(null);
         e.setWithdrawRejectedAt(null);
         enrollmentRepository.save(e);
+        enrollmentStream.enrollmentChanged(e);
         log.info("Admin corrected withdrawal rejection lmrId={}", lmrId);
         return e;
     }
@@ -0,0 +1,213 @@
+package org.misoenergy.les.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.misoenergy.les.domain.LMREnrollment;
+import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events of enrollment and eligibility changes, for the LMR ids each client subscribed to.
+ * <p>
+ * Connections are async requests: no request thread is held while a client waits. Changes are published after
+ * their transaction commits. Each one is serialized once into an SSE frame, and one fan-out thread writes that
+ * frame to every subscriber of the LMR; changes to LMRs nobody watches cost a map lookup. Events:
+ * {@code enrollment} (the enrollment, as from {@code GET /api/lmrs/{id}}) and {@code eligibility} (as from
+ * {@code GET /api/lmrs/{id}/withdraw-eligibility}). A comment line every {@code les.stream.heartbeat-ms} keeps
+ * proxies from closing idle streams and finds dead clients.
+ * <p>
+ * Best effort: with the fan-out queue full a change is dropped, and an instance only sees the transitions it
+ * made and the eligibility of the partitions it consumes. Clients re-read on (re)connect and revalidate now and
+ * then with ETags. Metric: {@code les.stream.subscribers}.
+ */
+@Component
+public class EnrollmentStream {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentStream.class);
+
+    private final EligibilityCache eligibilityCache;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final int maxLmrs;
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService fanOut;
+
+    public EnrollmentStream(EligibilityCache eligibilityCache,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${les.stream.timeout:PT30M}") Duration timeout,
+                            @Value("${les.stream.max-lmrs:100}") int maxLmrs,
+                            @Value("${les.stream.queue-capacity:10000}") int queueCapacity) {
+        this.eligibilityCache = eligibilityCache;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.maxLmrs = maxLmrs;
+        // One thread keeps each client's events in order; sends only block on a client with a full socket buffer
+        this.fanOut = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "enrollment-stream");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("les.stream.subscribers", connections, AtomicInteger::get)
+                .description("Open enrollment event streams")
+                .register(meterRegistry);
+    }
+
+    /** Opens a stream of the changes to {@code lmrIds}; closed by the client, on error or after the timeout. */
+    public SseEmitter subscribe(Collection<String> lmrIds) {
+        if (lmrIds.isEmpty() || lmrIds.size() > maxLmrs) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Subscribe to between 1 and " + maxLmrs + " LMRs");
+        }
+        List<String> ids = List.copyOf(Set.copyOf(lmrIds));
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Runnable unsubscribe = () -> {
+            // From every id, not just the first: completion, timeout and error may each run this
+            boolean removed = false;
+            for (String id : ids) removed |= remove(id, emitter);
+            if (removed) connections.decrementAndGet();
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        ids.forEach(id -> subscribers.compute(id, (k, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        }));
+        connections.incrementAndGet();
+        return emitter;
+    }
+
+    /** The enrollment changed in the current transaction. */
+    public void enrollmentChanged(LMREnrollment enrollment) {
+        String lmrId = enrollment.getLmrId();
+        if (!subscribers.containsKey(lmrId)) return;
+        afterCommit(() -> publish(lmrId, "enrollment", enrollment));
+    }
+
+    /** Eligibility may have changed in the current transaction; what the cache then holds is sent. */
+    public void eligibilityChanged(String planningYear, String lmrId) {
+        if (!subscribers.containsKey(lmrId)) return;
+        afterCommit(() -> fanOut(() -> eligibilityCache.get(planningYear, lmrId)
+                .ifPresent(e -> send(lmrId, frame("eligibility", eligibilityBody(e))))));
+    }
+
+    @Scheduled(fixedDelayString = "${les.stream.heartbeat-ms:20000}", initialDelayString = "${les.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) return;
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("").build();
+        fanOut(() -> subscribers.values().stream()
+                .flatMap(Set::stream)
+                .distinct()
+                .forEach(emitter -> send(emitter, comment)));
+    }
+
+    @PreDestroy
+    void close() {
+        fanOut.shutdownNow();
+        subscribers.values().stream().flatMap(Set::stream).distinct().forEach(SseEmitter::complete);
+    }
+
+    private void publish(String lmrId, String event, Object payload) {
+        fanOut(() -> send(lmrId, frame(event, payload)));
+    }
+
+    private Set<DataWithMediaType> frame(String event, Object payload) {
+        try {
+            return SseEmitter.event().name(event).data(objectMapper.writeValueAsString(payload)).build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stream event serialization failed", ex);
+        }
+    }
+
+    private void send(String lmrId, Set<DataWithMediaType> frame) {
+        Set<SseEmitter> emitters = subscribers.get(lmrId);
+        if (emitters != null) emitters.forEach(emitter -> send(emitter, frame));
+    }
+
+    private static void send(SseEmitter emitter, Set<DataWithMediaType> frame) {
+        try {
+            emitter.send(frame);
+        } catch (IOException | IllegalStateException ex) {
+            // Client gone; completing runs the unsubscribe callback
+            emitter.completeWithError(ex);
+        }
+    }
+
+    private void fanOut(Runnable task) {
+        try {
+            fanOut.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    log.warn("Enrollment stream fan-out failed: {}", ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("Enrollment stream queue full; change dropped");
+        }
+    }
+
+    private boolean remove(String lmrId, SseEmitter emitter) {
+        boolean[] removed = {false};
+        subscribers.computeIfPresent(lmrId, (id, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        return removed[0];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Same fields as {@code GET /api/lmrs/{id}/withdraw-eligibility}. */
+    private static Map<String, Object> eligibilityBody(LMRWithdrawEligibility e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("lmrId", e.getLmrId());
+        body.put("planningYear", e.getPlanningYear());
+        body.put("canWithdraw", e.isCanWithdraw());
+        body.put("message", e.getReason() != null ? e.getReason() : "");
+        body.put("updatedAt", e.getUpdatedAt());
+        return body;
+    }
+}
@@ -0,0 +1,9 @@
+package org.misoenergy.les.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as {@code cursor} to get the next
+ * page, and is null on the last one.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {}
@@ -1,13 +1,22 @@
 package org.misoenergy.les.web;
 
+import org.misoenergy.les.deadletter.DeadLetter;
+import org.misoenergy.les.deadletter.DeadLetterReplayService;
+import org.misoenergy.les.deadletter.DeadLetterService;
 import org.misoenergy.les.domain.LMREnrollment;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.kafka.EligibilityRebuild;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.WithdrawRejectionRow;
 import org.misoenergy.les.service.EnrollmentService;
+import org.misoenergy.les.service.KeysetPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,9 +31,18 @@ import java.util.stream.Collectors;
 public class AdminController {
 
     private final EnrollmentService enrollmentService;
+    private final EligibilityRebuild eligibilityRebuild;
+    private final DeadLetterService deadLetterService;
+    private final DeadLetterReplayService deadLetterReplayService;
 
-    public AdminController(EnrollmentService enrollmentService) {
+    public AdminController(EnrollmentService enrollmentService,
+                           EligibilityRebuild eligibilityRebuild,
+                           DeadLetterService deadLetterService,
+                           DeadLetterReplayService deadLetterReplayService) {
         this.enrollmentService = enrollmentService;
+        this.eligibilityRebuild = eligibilityRebuild;
+        this.deadLetterService = deadLetterService;
+        this.deadLetterReplayService = deadLetterReplayService;
     }
 
     @GetMapping("/withdraw-rejections")
@@ -32,22 +50,25 @@ public class AdminController {
             summary = "List withdrawals rejected by MECT",
             description = "Enrollments where the user requested withdrawal (button was shown) but MECT rejected, "
                     + "e.g. because state changed in MECT between eligibility check and request. "
-                    + "Visible so admins can act; if this happens often in production, automatic reconciliation may be added later."
+                    + "Visible so admins can act; if this happens often in production, automatic reconciliation may be added later. "
+                    + "Most recently rejected first; pass nextCursor as cursor for the next page."
     )
-    public ResponseEntity<List<WithdrawRejectionDto>> listWithdrawRejections() {
-        List<LMREnrollment> list = enrollmentService.listWithdrawRejected();
-        List<WithdrawRejectionDto> body = list.stream()
-                .map(e -> new WithdrawRejectionDto(
-                        e.getLmrId(),
-                        e.getPlanningYear(),
-                        e.getLmrName(),
-                        e.getMarketParticipantName(),
-                        e.getWithdrawRejectReason(),
-                        e.getWithdrawRejectedAt(),
-                        e.getUpdatedAt()
+    public ResponseEntity<KeysetPage<WithdrawRejectionDto>> listWithdrawRejections(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        KeysetPage<WithdrawRejectionRow> page = enrollmentService.listWithdrawRejected(cursor, limit);
+        List<WithdrawRejectionDto> items = page.items().stream()
+                .map(r -> new WithdrawRejectionDto(
+                        r.lmrId(),
+                        r.planningYear(),
+                        r.lmrName(),
+                        r.marketParticipantName(),
+                        r.reason(),
+                        r.withdrawRejectedAt(),
+                        r.updatedAt()
                 ))
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(body);
+        return ResponseEntity.ok(new KeysetPage<>(items, page.nextCursor()));
     }
 
     @PostMapping("/lmrs/{id}/correct-withdrawal")
@@ -72,6 +93,85 @@ public class AdminController {
         return ResponseEntity.ok(dto);
     }
 
+    @PostMapping("/eligibility/rebuild")
+    @Operation(
+            summary = "Rebuild the eligibility read-model from the compacted topic",
+            description = "Pauses eligibility consumption, reads lmr.withdraw.eligibility.v1 from the beginning, "
+                    + "bulk-loads the newest state per LMR into a shadow table and swaps it in, then resumes "
+                    + "consumption from the offsets the snapshot covers. Returns when done; 409 if one is already running. "
+                    + "Requires ADMIN."
+    )
+    public ResponseEntity<EligibilityRebuild.Result> rebuildEligibility() {
+        return ResponseEntity.ok(eligibilityRebuild.rebuild());
+    }
+
+    @GetMapping("/dead-letters")
+    @Operation(
+            summary = "List dead letters",
+            description = "Consumed records that exhausted their retry topics or could not be decoded, newest first. "
+                    + "Filter by original topic; limit defaults to 100 (max 1000)."
+    )
+    public ResponseEntity<List<DeadLetterDto>> listDeadLetters(
+            @RequestParam(name = "topic", required = false) String topic,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetterService.list(topic, limit).stream().map(DeadLetterDto::of).toList());
+    }
+
+    @PostMapping("/dead-letters/{id}/replay")
+    @Operation(
+            summary = "Replay one dead letter",
+            description = "Processes the stored record again as its listener would, in one transaction, and marks it "
+                    + "replayed. Nothing is published. 409 if it was already replayed or carries no event (tombstone), "
+                    + "422 if it fails again. Requires ADMIN."
+    )
+    public ResponseEntity<DeadLetterDto> replayDeadLetter(@PathVariable("id") long id) {
+        return ResponseEntity.ok(DeadLetterDto.of(deadLetterReplayService.replay(id)));
+    }
+
+    @PostMapping("/dead-letters/replay")
+    @Operation(
+            summary = "Replay the pending dead letters of a topic",
+            description = "Replays up to limit (default 1000) not yet replayed dead letters of the topic, oldest first, "
+                    + "each in its own transaction, e.g. once the fix for their failure is deployed. "
+                    + "Those that fail again stay pending. Returns the number replayed. Requires ADMIN."
+    )
+    public ResponseEntity<ReplayResultDto> replayDeadLetters(
+            @RequestParam("topic") String topic,
+            @RequestParam(name = "limit", defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(new ReplayResultDto(topic, deadLetterReplayService.replayAll(topic, limit)));
+    }
+
+    /**
+     * Dead letter as shown to admins: {@code payload} is the JSON text, or null for a binary record, whose bytes
+     * are in {@code payloadBase64}.
+     */
+    public record DeadLetterDto(
+            long id,
+            String topic,
+            Integer partition,
+            Long offset,
+            String key,
+            String encoding,
+            String payload,
+            String payloadBase64,
+            String exceptionClass,
+            String exceptionMessage,
+            Instant failedAt,
+            Instant replayedAt
+    ) {
+        static DeadLetterDto of(DeadLetter d) {
+            boolean binary = EventCodec.BINARY.equals(d.getEncoding());
+            byte[] bytes = d.getPayload();
+            return new DeadLetterDto(d.getId(), d.getTopic(), d.getPartition(), d.getOffset(), d.getMessageKey(),
+                    d.getEncoding(),
+                    bytes != null && !binary ? new String(bytes, StandardCharsets.UTF_8) : null,
+                    bytes != null && binary ? Base64.getEncoder().encodeToString(bytes) : null,
+                    d.getExceptionClass(), d.getExceptionMessage(), d.getFailedAt(), d.getReplayedAt());
+        }
+    }
+
+    public record ReplayResultDto(String topic, int replayed) {}
+
     /** DTO for admin list and correction result: no need to expose full entity. */
     public record WithdrawRejectionDto(
             String lmrId,
@@ -0,0 +1,51 @@
+package org.misoenergy.les.web;
+
+import java.time.Instant;
+
+/**
+ * Strong entity tags for the polled enrollment endpoints, and the {@code If-None-Match} check.
+ * <p>
+ * Tags are built from what versions the resource ({@code updatedAt}, plus the eligibility {@code version}), so they
+ * can be compared before the representation is loaded. Timestamps are taken to the microsecond, the precision
+ * Postgres stores.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String enrollment(Instant updatedAt) {
+        return "\"e-" + micros(updatedAt) + "\"";
+    }
+
+    static String eligibility(long version, Instant updatedAt) {
+        return "\"w-" + version + "-" + micros(updatedAt) + "\"";
+    }
+
+    /** Eligibility not received from MECT yet: the default answer changes with the enrollment only. */
+    static String eligibilityPending(Instant enrollmentUpdatedAt) {
+        return "\"w-none-" + micros(enrollmentUpdatedAt) + "\"";
+    }
+
+    /** Enrollment and eligibility together: changes when either does. */
+    static String detail(Instant updatedAt, Long eligibilityVersion, Instant eligibilityUpdatedAt) {
+        return "\"d-" + micros(updatedAt) + "-"
+                + (eligibilityVersion != null ? eligibilityVersion + "-" + micros(eligibilityUpdatedAt) : "none") + "\"";
+    }
+
+    /** RFC 9110 {@code If-None-Match}: {@code *} or any listed tag, compared weakly, matches. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+}
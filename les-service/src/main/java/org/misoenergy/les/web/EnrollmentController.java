@@ -1,20 +1,30 @@
 package org.misoenergy.les.web;
 
+import org.misoenergy.les.domain.EnrollmentStatus;
 import org.misoenergy.les.domain.LMREnrollment;
 import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.misoenergy.les.domain.ResourceType;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentDetail;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentFilter;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentSummary;
 import org.misoenergy.les.service.CreateEnrollmentRequest;
 import org.misoenergy.les.service.EnrollmentService;
+import org.misoenergy.les.service.KeysetPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.ELIGIBILITY_PENDING_MESSAGE;
+
 @RestController
 @RequestMapping("/api/lmrs")
 @Tag(name = "LMR Enrollment", description = "Load enrollment lifecycle and withdrawal")
@@ -27,9 +37,25 @@ public class EnrollmentController {
     }
 
     @GetMapping
-    @Operation(summary = "List all enrollments (newest first)")
-    public ResponseEntity<List<LMREnrollment>> list() {
-        return ResponseEntity.ok(enrollmentService.listAll());
+    @Operation(
+            summary = "List enrollments (most recently updated first), one page at a time",
+            description = "Optional exact-match filters. Pass the returned nextCursor as cursor for the next page; "
+                    + "it is null on the last page. limit is capped at 500."
+    )
+    public ResponseEntity<KeysetPage<EnrollmentSummary>> list(
+            @RequestParam(name = "status", required = false) EnrollmentStatus status,
+            @RequestParam(name = "planningYear", required = false) String planningYear,
+            @RequestParam(name = "resourceType", required = false) ResourceType resourceType,
+            @RequestParam(name = "participant", required = false) String participant,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        EnrollmentFilter filter = new EnrollmentFilter(status, blankToNull(planningYear), resourceType,
+                blankToNull(participant));
+        return ResponseEntity.ok(enrollmentService.list(filter, cursor, limit));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 
     @PostMapping
@@ -65,14 +91,19 @@ public class EnrollmentController {
             summary = "Get withdrawal eligibility for UI",
             description = "From MECT via Kafka. Use canWithdraw to decide whether to show the Withdraw button. "
                     + "When canWithdraw is false, display 'message' to the user (from MECT; LES does not map codes). "
-                    + "Returns 200 with a default (canWithdraw=false) when enrollment exists but MECT has not yet sent eligibility."
+                    + "Returns 200 with a default (canWithdraw=false) when enrollment exists but MECT has not yet sent eligibility. "
+                    + "Carries an ETag; send it back in If-None-Match to get 304 while nothing changed."
     )
-    public ResponseEntity<?> getWithdrawEligibility(@PathVariable("id") String lmrId) {
+    public ResponseEntity<?> getWithdrawEligibility(
+            @PathVariable("id") String lmrId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Optional<LMRWithdrawEligibility> el = enrollmentService.getEligibility(lmrId);
         if (el.isPresent()) {
             LMRWithdrawEligibility e = el.get();
+            String etag = ETags.eligibility(e.getVersion(), e.getUpdatedAt());
+            if (ETags.matches(ifNoneMatch, etag)) return notModified(etag);
             String message = e.getReason() != null ? e.getReason() : "";
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok().eTag(etag).body(Map.of(
                     "lmrId", e.getLmrId(),
                     "planningYear", e.getPlanningYear(),
                     "canWithdraw", e.isCanWithdraw(),
@@ -81,12 +112,16 @@ public class EnrollmentController {
             ));
         }
         // Eligibility not in LES yet; if enrollment exists, return 200 with default so UI does not 404
+        Optional<Instant> updatedAt = enrollmentService.getUpdatedAt(lmrId);
+        if (updatedAt.isPresent() && ETags.matches(ifNoneMatch, ETags.eligibilityPending(updatedAt.get()))) {
+            return notModified(ETags.eligibilityPending(updatedAt.get()));
+        }
         return enrollmentService.getByLmrId(lmrId)
-                .map(en -> ResponseEntity.ok(Map.<String, Object>of(
+                .map(en -> ResponseEntity.ok().eTag(ETags.eligibilityPending(en.getUpdatedAt())).body(Map.<String, Object>of(
                         "lmrId", en.getLmrId(),
                         "planningYear", en.getPlanningYear(),
                         "canWithdraw", false,
-                        "message", "Eligibility not yet available from MECT.",
+                        "message", ELIGIBILITY_PENDING_MESSAGE,
                         "updatedAt", en.getUpdatedAt()
                 )))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -94,10 +129,44 @@ public class EnrollmentController {
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get enrollment by LMR ID")
-    public ResponseEntity<LMREnrollment> get(@PathVariable("id") String lmrId) {
+    @Operation(
+            summary = "Get enrollment by LMR ID",
+            description = "Carries an ETag; send it back in If-None-Match to get 304 while nothing changed."
+    )
+    public ResponseEntity<LMREnrollment> get(
+            @PathVariable("id") String lmrId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Only the timestamp is read for the check; the entity is loaded when the client's copy is stale
+        Optional<Instant> updatedAt = enrollmentService.getUpdatedAt(lmrId);
+        if (updatedAt.isEmpty()) return ResponseEntity.notFound().build();
+        if (ETags.matches(ifNoneMatch, ETags.enrollment(updatedAt.get()))) {
+            return notModified(ETags.enrollment(updatedAt.get()));
+        }
         return enrollmentService.getByLmrId(lmrId)
-                .map(ResponseEntity::ok)
+                .map(e -> ResponseEntity.ok().eTag(ETags.enrollment(e.getUpdatedAt())).body(e))
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @GetMapping("/{id}/detail")
+    @Operation(
+            summary = "Get enrollment with its withdrawal eligibility, for the detail screen",
+            description = "The fields of GET /api/lmrs/{id} plus canWithdraw, message, blockingFlags, "
+                    + "eligibilityVersion and eligibilityUpdatedAt, from one query. Until MECT sends eligibility, "
+                    + "canWithdraw is false and the eligibility fields are null. Carries an ETag; send it back in "
+                    + "If-None-Match to get 304 while neither changed."
+    )
+    public ResponseEntity<EnrollmentDetail> getDetail(
+            @PathVariable("id") String lmrId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<EnrollmentDetail> detail = enrollmentService.getDetail(lmrId);
+        if (detail.isEmpty()) return ResponseEntity.notFound().build();
+        EnrollmentDetail d = detail.get();
+        String etag = ETags.detail(d.updatedAt(), d.eligibilityVersion(), d.eligibilityUpdatedAt());
+        if (ETags.matches(ifNoneMatch, etag)) return notModified(etag);
+        return ResponseEntity.ok().eTag(etag).body(d);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
 }
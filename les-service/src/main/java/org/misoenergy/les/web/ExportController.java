@@ -0,0 +1,85 @@
+package org.misoenergy.les.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.misoenergy.les.domain.EnrollmentStatus;
+import org.misoenergy.les.domain.ResourceType;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentFilter;
+import org.misoenergy.les.service.EnrollmentExport;
+import org.misoenergy.les.service.EnrollmentExport.Format;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exports for batch consumers. The handler writes to the servlet output stream itself, on the request
+ * thread, so an export is not cut off by the async request timeout.
+ */
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Export", description = "Streaming bulk exports for settlement and reporting")
+public class ExportController {
+
+    private final EnrollmentExport enrollmentExport;
+
+    public ExportController(EnrollmentExport enrollmentExport) {
+        this.enrollmentExport = enrollmentExport;
+    }
+
+    @GetMapping("/enrollments")
+    @Operation(
+            summary = "Export enrollments with their withdraw eligibility as NDJSON or CSV",
+            description = "Streams every matching enrollment in id order, one line per enrollment, gzip-encoded when "
+                    + "the client sends Accept-Encoding: gzip. Same optional filters as GET /api/lmrs. "
+                    + "Eligibility fields are empty when MECT has not sent eligibility yet."
+    )
+    public void exportEnrollments(@RequestParam(name = "format", defaultValue = "ndjson") String formatName,
+                                  @RequestParam(name = "status", required = false) EnrollmentStatus status,
+                                  @RequestParam(name = "planningYear", required = false) String planningYear,
+                                  @RequestParam(name = "resourceType", required = false) ResourceType resourceType,
+                                  @RequestParam(name = "participant", required = false) String participant,
+                                  HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        Format format = switch (formatName.toLowerCase()) {
+            case "ndjson" -> Format.NDJSON;
+            case "csv" -> Format.CSV;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        };
+        EnrollmentFilter filter = new EnrollmentFilter(status, blankToNull(planningYear), resourceType,
+                blankToNull(participant));
+        String extension = format == Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == Format.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"enrollments-" + LocalDate.now() + "." + extension + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptsGzip(request);
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        OutputStream out = response.getOutputStream();
+        // syncFlush: every flush of the export also pushes the compressed bytes written so far
+        OutputStream body = gzip ? new GZIPOutputStream(out, 64 * 1024, true) : out;
+        enrollmentExport.write(filter, format, body);
+        if (body instanceof GZIPOutputStream zip) zip.finish();
+        out.flush();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accepted = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return accepted != null && accepted.toLowerCase().contains("gzip");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
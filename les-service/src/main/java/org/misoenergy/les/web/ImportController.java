@@ -0,0 +1,71 @@
+package org.misoenergy.les.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.misoenergy.les.service.EnrollmentImport;
+import org.misoenergy.les.service.EnrollmentImport.Format;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming imports. The handler reads the request body itself, on the request thread, so an upload is never
+ * buffered whole. The report is spooled to a temporary file and sent once the upload has been read: most HTTP/1.1
+ * clients only read the response after sending the whole request, so a report written while they upload would fill
+ * the socket buffers and stall both sides.
+ */
+@RestController
+@RequestMapping("/api/import")
+@Tag(name = "Import", description = "Streaming bulk imports for participant onboarding")
+public class ImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final EnrollmentImport enrollmentImport;
+
+    public ImportController(EnrollmentImport enrollmentImport) {
+        this.enrollmentImport = enrollmentImport;
+    }
+
+    @PostMapping(path = "/enrollments", consumes = {NDJSON, "text/csv"}, produces = NDJSON)
+    @Operation(
+            summary = "Import enrollments as DRAFT from NDJSON or CSV",
+            description = "NDJSON: one object per line with the fields of POST /api/lmrs. CSV: a header naming "
+                    + "lmrId, marketParticipantName, lmrName, resourceType and planningYear. The body may be gzip-encoded "
+                    + "(Content-Encoding: gzip). Answers with one NDJSON line per row (CREATED, DUPLICATE or INVALID, "
+                    + "with the row's line number), then a summary line."
+    )
+    public void importEnrollments(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? Format.CSV : Format.NDJSON;
+        InputStream in = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        Path spool = Files.createTempFile("enrollment-import-", ".ndjson");
+        try {
+            try (OutputStream report = new BufferedOutputStream(Files.newOutputStream(spool), 64 * 1024)) {
+                enrollmentImport.read(format, in, report);
+            }
+            response.setContentType(NDJSON + ";charset=UTF-8");
+            response.setContentLengthLong(Files.size(spool));
+            OutputStream out = response.getOutputStream();
+            Files.copy(spool, out);
+            out.flush();
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.misoenergy.les.web;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.misoenergy.les.service.EnrollmentStream;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Server-Sent Events for screens that follow enrollments live, instead of polling them. See {@link EnrollmentStream}.
+ */
+@RestController
+@RequestMapping("/api/stream")
+@Tag(name = "Stream", description = "Live enrollment and eligibility changes")
+public class StreamController {
+
+    private final EnrollmentStream enrollmentStream;
+
+    public StreamController(EnrollmentStream enrollmentStream) {
+        this.enrollmentStream = enrollmentStream;
+    }
+
+    @GetMapping(path = "/enrollments", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream changes to the given LMRs as Server-Sent Events",
+            description = "Repeat lmrId for each LMR (up to 100). Events: 'enrollment' carries the enrollment as from "
+                    + "GET /api/lmrs/{id}; 'eligibility' the body of GET /api/lmrs/{id}/withdraw-eligibility. "
+                    + "Nothing is replayed: read the current state once the stream is open, and again after a reconnect."
+    )
+    public SseEmitter streamEnrollments(@RequestParam(name = "lmrId") List<String> lmrIds) {
+        return enrollmentStream.subscribe(lmrIds);
+    }
+}
@@ -0,0 +1,11 @@
+-- Keyset pagination of GET /api/lmrs: ORDER BY updated_at DESC, id DESC continuing at (updated_at, id) < cursor.
+-- One index per filter column, each followed by the sort key, so a filtered page is a single range scan
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_updated ON lmr_enrollment (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_status_updated ON lmr_enrollment (status, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_year_updated ON lmr_enrollment (planning_year, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_type_updated ON lmr_enrollment (resource_type, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_participant_updated ON lmr_enrollment (market_participant_name, updated_at, id);
+
+-- Admin withdraw-rejections list, most recently rejected first; only the rejected rows are indexed
+CREATE INDEX IF NOT EXISTS idx_lmr_enrollment_rejected ON lmr_enrollment (withdraw_rejected_at, id)
+    WHERE status = 'WITHDRAW_REJECTED';
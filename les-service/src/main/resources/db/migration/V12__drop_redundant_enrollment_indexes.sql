@@ -0,0 +1,4 @@
+-- Every insert maintains every index; bulk import inserts thousands of enrollments at a time.
+-- lmr_id is already indexed by its UNIQUE constraint, and (status) is a prefix of (status, updated_at, id) from V11.
+DROP INDEX IF EXISTS idx_lmr_enrollment_lmr_id;
+DROP INDEX IF EXISTS idx_lmr_enrollment_status;
@@ -0,0 +1,8 @@
+-- CDC outbox relay (relay-mode=cdc): when the relay first created its replication slot. Rows created before then
+-- are not in the slot's stream and are published the polling way, once; later rows only travel through the slot.
+-- cdc_since is null when the slot predates this table, so nothing is drained for it.
+
+CREATE TABLE outbox_relay_state (
+    slot_name VARCHAR(64) PRIMARY KEY,
+    cdc_since TIMESTAMP
+);
@@ -0,0 +1,3 @@
+-- processed_at orders the idempotency LRU warm-up (newest ids first) and bounds when a partition may be dropped
+-- (its newest processed_at, see ProcessedEventPartitionMaintenance); both read it per partition.
+CREATE INDEX idx_processed_event_processed_at ON processed_event(processed_at);
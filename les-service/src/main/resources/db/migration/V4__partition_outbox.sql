@@ -0,0 +1,43 @@
+-- Range-partition outbox_entry by month of created_at so fully published history is dropped a partition at a time
+-- (OutboxPartitionMaintenance) instead of growing the table and its indexes forever.
+
+ALTER TABLE outbox_entry RENAME TO outbox_entry_unpartitioned;
+
+CREATE TABLE outbox_entry (
+    id BIGINT NOT NULL DEFAULT nextval('outbox_entry_id_seq'),
+    topic VARCHAR(128) NOT NULL,
+    message_key VARCHAR(256),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP,
+    claimed_by VARCHAR(128),
+    lease_expires_at TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE outbox_entry_id_seq OWNED BY outbox_entry.id;
+
+-- Safety net for rows outside the monthly partitions; stays empty while maintenance keeps partitions ahead
+CREATE TABLE outbox_entry_default PARTITION OF outbox_entry DEFAULT;
+
+DO $$
+DECLARE m DATE;
+BEGIN
+    FOR m IN SELECT generate_series(
+                 date_trunc('month', COALESCE((SELECT min(created_at) FROM outbox_entry_unpartitioned), localtimestamp)),
+                 date_trunc('month', localtimestamp) + interval '3 months',
+                 interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF outbox_entry FOR VALUES FROM (%L) TO (%L)',
+                       'outbox_entry_' || to_char(m, 'YYYYMM'), m, (m + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO outbox_entry (id, topic, message_key, payload, created_at, published_at, claimed_by, lease_expires_at)
+SELECT id, topic, message_key, payload, created_at, published_at, claimed_by, lease_expires_at
+FROM outbox_entry_unpartitioned;
+
+DROP TABLE outbox_entry_unpartitioned;
+
+-- Partial indexes: only unpublished rows are indexed, so poll cost does not depend on history
+CREATE INDEX idx_outbox_unpublished ON outbox_entry(id) WHERE published_at IS NULL;
+CREATE INDEX idx_outbox_unpublished_key ON outbox_entry(topic, message_key, id) WHERE published_at IS NULL;
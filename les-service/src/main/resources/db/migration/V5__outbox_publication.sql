@@ -0,0 +1,4 @@
+-- Publication for the CDC outbox relay (relay-mode=cdc). Inserts only; partitions publish as outbox_entry.
+-- Harmless in poll mode: without a replication slot nothing is decoded or retained.
+
+CREATE PUBLICATION outbox_pub FOR TABLE outbox_entry WITH (publish = 'insert', publish_via_partition_root = true);
@@ -0,0 +1,41 @@
+-- Range-partition processed_event by month so expired history is dropped a partition at a time
+-- (ProcessedEventPartitionMaintenance). Partitioned on the event's occurred_at rather than processed_at: a unique
+-- key on a partitioned table must include the partition key, and only a value carried by the event itself is the
+-- same on every redelivery, so (event_id, occurred_at) still rejects duplicates with ON CONFLICT.
+
+ALTER TABLE processed_event RENAME TO processed_event_unpartitioned;
+
+CREATE TABLE processed_event (
+    id BIGINT NOT NULL DEFAULT nextval('processed_event_id_seq'),
+    event_id VARCHAR(64) NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, occurred_at),
+    CONSTRAINT uq_processed_event_occurrence UNIQUE (event_id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+ALTER SEQUENCE processed_event_id_seq OWNED BY processed_event.id;
+
+CREATE TABLE processed_event_default PARTITION OF processed_event DEFAULT;
+
+DO $$
+DECLARE m DATE;
+BEGIN
+    FOR m IN SELECT generate_series(
+                 date_trunc('month', COALESCE((SELECT min(processed_at) FROM processed_event_unpartitioned), localtimestamp)),
+                 date_trunc('month', localtimestamp) + interval '3 months',
+                 interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF processed_event FOR VALUES FROM (%L) TO (%L)',
+                       'processed_event_' || to_char(m, 'YYYYMM'), m, (m + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+-- occurred_at was never stored; processed_at is the closest value (the claim's event_id lookup still matches these rows)
+INSERT INTO processed_event (id, event_id, occurred_at, processed_at)
+SELECT id, event_id, processed_at, processed_at
+FROM processed_event_unpartitioned;
+
+DROP TABLE processed_event_unpartitioned;
+
+-- Non-unique: lets a claim spot the same event_id stored under a different occurred_at (e.g. migrated rows)
+CREATE INDEX idx_processed_event_id ON processed_event(event_id);
@@ -0,0 +1,3 @@
+-- Watermark for last-writer-wins on the compacted eligibility topic: (version, updated_at) of the applied event
+
+ALTER TABLE lmr_withdraw_eligibility ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Eligibility upserts replace an LMR's flags by eligibility_id; without this every apply scans the whole table
+CREATE INDEX IF NOT EXISTS idx_eligibility_flags_eligibility_id ON lmr_eligibility_blocking_flags(eligibility_id);
@@ -0,0 +1,63 @@
+package org.misoenergy.les.deadletter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.les.events.EventCodec;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+
+    private DeadLetterService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DeadLetterService(deadLetterRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void mainTopicStripsRetryAndDltSuffixes() {
+        assertThat(DeadLetterService.mainTopic("lmr.withdraw.completed.v1-retry-2")).isEqualTo("lmr.withdraw.completed.v1");
+        assertThat(DeadLetterService.mainTopic("lmr.withdraw.completed.v1-dlt")).isEqualTo("lmr.withdraw.completed.v1");
+        assertThat(DeadLetterService.mainTopic("lmr.withdraw.completed.v1")).isEqualTo("lmr.withdraw.completed.v1");
+    }
+
+    @Test
+    void onDeadLetterKeepsOriginalPositionAndFailure() {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("lmr.withdraw.completed.v1-dlt", 0, 9L, "2026:L1", new byte[] {1, 2});
+        record.headers().add(EventCodec.HEADER, EventCodec.BINARY.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.ORIGINAL_TOPIC, "lmr.withdraw.completed.v1".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(3).array());
+        record.headers().add(KafkaHeaders.ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(42L).array());
+        record.headers().add(KafkaHeaders.EXCEPTION_CAUSE_FQCN, "java.lang.IllegalStateException".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.EXCEPTION_MESSAGE, "boom".getBytes(StandardCharsets.UTF_8));
+
+        service.onDeadLetter(record);
+
+        ArgumentCaptor<DeadLetter> saved = ArgumentCaptor.forClass(DeadLetter.class);
+        verify(deadLetterRepository).save(saved.capture());
+        DeadLetter letter = saved.getValue();
+        assertThat(letter.getTopic()).isEqualTo("lmr.withdraw.completed.v1");
+        assertThat(letter.getPartition()).isEqualTo(3);
+        assertThat(letter.getOffset()).isEqualTo(42L);
+        assertThat(letter.getEncoding()).isEqualTo(EventCodec.BINARY);
+        assertThat(letter.getExceptionClass()).isEqualTo("java.lang.IllegalStateException");
+        assertThat(letter.getExceptionMessage()).isEqualTo("boom");
+        assertThat(letter.getPayload()).containsExactly(1, 2);
+    }
+}
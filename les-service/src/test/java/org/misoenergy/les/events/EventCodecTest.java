@@ -0,0 +1,123 @@
+package org.misoenergy.les.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final EventCodec codec = new EventCodec(objectMapper, List.of("lmr.withdraw.eligibility.v1"));
+
+    @Test
+    void eligibilityRoundTripsThroughBinary_andIsSmallerThanJson() throws Exception {
+        LmrWithdrawEligibilityEvent evt = eligibility();
+
+        byte[] binary = codec.toBinary(evt);
+        LmrWithdrawEligibilityEvent decoded = codec.decode(record(binary, EventCodec.BINARY), LmrWithdrawEligibilityEvent.class);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(evt);
+        assertThat(binary.length).isLessThan(codec.toJson(evt).getBytes(StandardCharsets.UTF_8).length * 2 / 3);
+    }
+
+    @Test
+    void recordWithoutHeaderIsJson() throws Exception {
+        LmrWithdrawCompletedEvent evt = new LmrWithdrawCompletedEvent();
+        evt.setEventId("e-1");
+        evt.setLmrId("LMR-001");
+        evt.setOccurredAt(Instant.parse("2026-10-17T10:00:00.123456Z"));
+
+        LmrWithdrawCompletedEvent decoded = codec.decode(record(codec.toJson(evt).getBytes(StandardCharsets.UTF_8), null),
+                LmrWithdrawCompletedEvent.class);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(evt);
+    }
+
+    @Test
+    void readerSkipsFieldsAddedByANewerWriter() throws Exception {
+        LmrApprovedEvent evt = new LmrApprovedEvent();
+        evt.setLmrId("LMR-001");
+        evt.setResourceType("LMR_DR");
+        byte[] known = codec.toBinary(evt);
+        // field 14 as a string ("x") and field 15 as a varint (300), appended by a hypothetical newer schema
+        byte[] extra = {14 << 3 | 2, 1, 'x', 15 << 3, (byte) 0xac, 2};
+        byte[] newer = Arrays.copyOf(known, known.length + extra.length);
+        System.arraycopy(extra, 0, newer, known.length, extra.length);
+
+        LmrApprovedEvent decoded = codec.decode(record(newer, EventCodec.BINARY), LmrApprovedEvent.class);
+
+        assertThat(decoded.getLmrId()).isEqualTo("LMR-001");
+        assertThat(decoded.getResourceType()).isEqualTo("LMR_DR");
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() {
+        byte[] binary = codec.toBinary(eligibility());
+        binary[0] = 2;
+
+        assertThatThrownBy(() -> codec.decode(record(binary, EventCodec.BINARY), LmrWithdrawEligibilityEvent.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("format version 2");
+    }
+
+    @Test
+    void emptyOrTruncatedBinaryIsRejected() {
+        byte[] binary = codec.toBinary(eligibility());
+        byte[] truncated = Arrays.copyOf(binary, binary.length - 3);
+
+        assertThatThrownBy(() -> codec.decode(record(new byte[0], EventCodec.BINARY), LmrWithdrawEligibilityEvent.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+        assertThatThrownBy(() -> codec.decode(record(truncated, EventCodec.BINARY), LmrWithdrawEligibilityEvent.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void jsonNullAndTombstoneAreNoEvent() {
+        byte[] jsonNull = "null".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> codec.decode(record(jsonNull, null), LmrWithdrawCompletedEvent.class))
+                .isInstanceOf(EventCodec.NoEventException.class);
+        assertThatThrownBy(() -> codec.decode(record(null, EventCodec.BINARY), LmrWithdrawEligibilityEvent.class))
+                .isInstanceOf(EventCodec.NoEventException.class);
+    }
+
+    @Test
+    void binaryIsChosenPerTopic() {
+        assertThat(codec.isBinary("lmr.withdraw.eligibility.v1")).isTrue();
+        assertThat(codec.isBinary("lmr.withdraw.completed.v1")).isFalse();
+    }
+
+    private static LmrWithdrawEligibilityEvent eligibility() {
+        LmrWithdrawEligibilityEvent evt = new LmrWithdrawEligibilityEvent();
+        evt.setEventId("3f1c6a0e-7d7b-4a59-9a57-2f0c1e6f4b21");
+        evt.setEventType("LmrWithdrawEligibility");
+        evt.setOccurredAt(Instant.parse("2026-10-17T10:00:00.123456Z"));
+        evt.setLmrId("LMR-001");
+        evt.setPlanningYear("2026-2027");
+        evt.setCanWithdraw(false);
+        evt.setReason("Withdrawal blocked: PENDING_REVIEW, AUDIT_HOLD");
+        evt.setBlockingFlags(List.of("PENDING_REVIEW", "AUDIT_HOLD"));
+        evt.setUpdatedAt(Instant.parse("2026-10-17T10:00:00.123456Z"));
+        evt.setVersion(7L);
+        return evt;
+    }
+
+    private static ConsumerRecord<String, byte[]> record(byte[] value, String encoding) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("topic", 0, 0L, "2026-2027:LMR-001", value);
+        if (encoding != null) record.headers().add(EventCodec.HEADER, encoding.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
@@ -0,0 +1,134 @@
+package org.misoenergy.les.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final Instant OCCURRED = Instant.parse("2026-03-02T10:15:30Z");
+
+    @Mock
+    private ProcessedEventRepository processedEventRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new IdempotencyService(processedEventRepository, jdbcTemplate, 2, meterRegistry);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void newEventIsClaimedOnceAndRememberedAfterCommit() {
+        when(processedEventRepository.claim("e1", OCCURRED)).thenReturn(1);
+
+        assertThat(service.markProcessed("e1", OCCURRED, record(5L))).isTrue();
+        commit();
+
+        assertThat(service.markProcessed("e1", OCCURRED, record(5L))).isFalse();
+        verify(processedEventRepository, times(1)).claim(anyString(), any());
+        assertThat(count("db_new")).isEqualTo(1.0);
+        assertThat(count("recent_hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void claimThatInsertsNothingIsADuplicate() {
+        when(processedEventRepository.claim("e1", OCCURRED)).thenReturn(0);
+
+        assertThat(service.markProcessed("e1", OCCURRED, record(5L))).isFalse();
+        assertThat(count("db_duplicate")).isEqualTo(1.0);
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+
+    @Test
+    void rolledBackClaimIsNotRemembered() {
+        when(processedEventRepository.claim("e1", OCCURRED)).thenReturn(1);
+
+        service.markProcessed("e1", OCCURRED, record(5L));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThat(service.markProcessed("e1", OCCURRED, record(5L))).isTrue();
+        verify(processedEventRepository, times(2)).claim("e1", OCCURRED);
+    }
+
+    @Test
+    void nullEventIdIsNeverDeduplicated() {
+        assertThat(service.markProcessed(null, OCCURRED, record(5L))).isTrue();
+        verify(processedEventRepository, never()).claim(any(), any());
+    }
+
+    @Test
+    void missingOccurredAtIsKeyedByTheRecordTimestamp() {
+        when(processedEventRepository.claim("e1", Instant.ofEpochMilli(1_700_000_000_000L))).thenReturn(1);
+
+        assertThat(service.markProcessed("e1", null, record(1_700_000_000_000L))).isTrue();
+    }
+
+    @Test
+    void missingOccurredAtOnARetryTopicIsKeyedByTheOriginalTimestamp() {
+        ConsumerRecord<String, byte[]> retried = record(1_700_000_999_000L);
+        retried.headers().add(KafkaHeaders.ORIGINAL_TIMESTAMP, ByteBuffer.allocate(8).putLong(1_700_000_000_000L).array());
+        retried.headers().add(KafkaHeaders.ORIGINAL_TIMESTAMP, ByteBuffer.allocate(8).putLong(1_700_000_500_000L).array());
+        when(processedEventRepository.claim("e1", Instant.ofEpochMilli(1_700_000_000_000L))).thenReturn(1);
+
+        assertThat(service.markProcessed("e1", null, retried)).isTrue();
+    }
+
+    @Test
+    void eventWithoutAnyTimestampIsRejected() {
+        assertThatThrownBy(() -> service.markProcessed("e1", null, record(ConsumerRecord.NO_TIMESTAMP)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(processedEventRepository, never()).claim(any(), any());
+    }
+
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("idempotency.checks", "result", result).count();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long timestamp) {
+        return new ConsumerRecord<>("lmr.withdraw.completed.v1", 0, 7L, timestamp, TimestampType.CREATE_TIME,
+                0, 0, "2026:L1", new byte[0], new RecordHeaders(), Optional.empty());
+    }
+}
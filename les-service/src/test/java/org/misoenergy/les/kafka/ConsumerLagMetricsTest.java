@@ -0,0 +1,142 @@
+package org.misoenergy.les.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerLagMetricsTest {
+
+    private static final TopicPartition COMPLETED_0 = new TopicPartition("lmr.withdraw.completed.v1", 0);
+    private static final TopicPartition COMPLETED_1 = new TopicPartition("lmr.withdraw.completed.v1", 1);
+    private static final TopicPartition RETRY_0 = new TopicPartition("lmr.withdraw.completed.v1-retry-0", 0);
+
+    @Mock
+    private AdminClient admin;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConsumerLagMetrics metrics;
+    private final Map<TopicPartition, Long> endOffsets = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ConsumerLagMetrics(mock(KafkaAdmin.class), meterRegistry, "les-service") {
+            @Override
+            AdminClient createAdmin() {
+                return admin;
+            }
+        };
+    }
+
+    @Test
+    void reportsLagOfTheGroupAndItsRetryGroupsOnly() {
+        groups("les-service", "les-service-retry-0", "mect-service");
+        committed("les-service", Map.of(COMPLETED_0, 40L, COMPLETED_1, 10L));
+        committed("les-service-retry-0", Map.of(RETRY_0, 3L));
+        endOffsets.putAll(Map.of(COMPLETED_0, 45L, COMPLETED_1, 10L, RETRY_0, 5L));
+        stubEndOffsets();
+
+        metrics.refresh();
+
+        assertThat(lag("les-service", COMPLETED_0)).isEqualTo(5.0);
+        assertThat(lag("les-service", COMPLETED_1)).isEqualTo(0.0);
+        assertThat(lag("les-service-retry-0", RETRY_0)).isEqualTo(2.0);
+        verify(admin, never()).listConsumerGroupOffsets("mect-service");
+    }
+
+    @Test
+    void partitionNoLongerCommittedDropsToZero() {
+        groups("les-service");
+        committed("les-service", Map.of(COMPLETED_0, 40L, COMPLETED_1, 10L));
+        endOffsets.putAll(Map.of(COMPLETED_0, 45L, COMPLETED_1, 12L));
+        stubEndOffsets();
+        metrics.refresh();
+
+        committed("les-service", Map.of(COMPLETED_0, 44L));
+        metrics.refresh();
+
+        assertThat(lag("les-service", COMPLETED_0)).isEqualTo(1.0);
+        assertThat(lag("les-service", COMPLETED_1)).isEqualTo(0.0);
+    }
+
+    @Test
+    void failedRefreshClosesTheAdminClient() {
+        ListConsumerGroupsResult groups = mock(ListConsumerGroupsResult.class);
+        when(groups.all()).thenReturn(failed());
+        when(admin.listConsumerGroups()).thenReturn(groups);
+
+        metrics.refresh();
+
+        verify(admin).close();
+    }
+
+    private void groups(String... ids) {
+        ListConsumerGroupsResult result = mock(ListConsumerGroupsResult.class);
+        when(result.all()).thenReturn(KafkaFuture.completedFuture(
+                List.of(ids).stream().map(id -> new ConsumerGroupListing(id, false)).toList()));
+        when(admin.listConsumerGroups()).thenReturn(result);
+    }
+
+    private void committed(String group, Map<TopicPartition, Long> offsets) {
+        Map<TopicPartition, OffsetAndMetadata> committed = new HashMap<>();
+        offsets.forEach((tp, offset) -> committed.put(tp, new OffsetAndMetadata(offset)));
+        ListConsumerGroupOffsetsResult result = mock(ListConsumerGroupOffsetsResult.class);
+        when(result.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(committed));
+        when(admin.listConsumerGroupOffsets(group)).thenReturn(result);
+    }
+
+    private void stubEndOffsets() {
+        when(admin.listOffsets(anyMap())).thenAnswer(inv -> {
+            Map<TopicPartition, ListOffsetsResultInfo> end = new HashMap<>();
+            inv.<Map<TopicPartition, ?>>getArgument(0).keySet().forEach(tp ->
+                    end.put(tp, new ListOffsetsResultInfo(endOffsets.get(tp), -1L, Optional.empty())));
+            ListOffsetsResult result = mock(ListOffsetsResult.class);
+            when(result.all()).thenReturn(KafkaFuture.completedFuture(end));
+            return result;
+        });
+    }
+
+    private double lag(String group, TopicPartition tp) {
+        Gauge gauge = meterRegistry.find("kafka.consumer.group.lag")
+                .tag("group", group)
+                .tag("topic", tp.topic())
+                .tag("partition", String.valueOf(tp.partition()))
+                .gauge();
+        assertThat(gauge).isNotNull();
+        return gauge.value();
+    }
+
+    private static <T> KafkaFuture<T> failed() {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.completeExceptionally(new IllegalStateException("broker unavailable"));
+        return future;
+    }
+}
@@ -0,0 +1,126 @@
+package org.misoenergy.les.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.events.LmrWithdrawEligibilityEvent;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.service.EligibilityCache;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EligibilityRebuildTest {
+
+    private static final String TOPIC = "lmr.withdraw.eligibility.v1";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+
+    @Mock
+    private ConsumerFactory<Object, Object> consumerFactory;
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+    @Mock
+    private LMRWithdrawEligibilityRepository eligibilityRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EligibilityResumeOffsets resumeOffsets;
+    @Mock
+    private EligibilityCache eligibilityCache;
+
+    private EventCodec codec;
+    private EligibilityRebuild rebuild;
+    private boolean fenced;
+
+    @BeforeEach
+    void setUp() {
+        codec = new EventCodec(new ObjectMapper().registerModule(new JavaTimeModule()), List.of());
+        rebuild = new EligibilityRebuild(consumerFactory, registry, codec, eligibilityRepository,
+                new TransactionTemplate(transactionManager), resumeOffsets, eligibilityCache, TOPIC, "never", 100,
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    void endOffsetsAreTakenAndTheTableSwappedWhileOtherWritersAreFenced() throws Exception {
+        MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions,
+                                                                     Duration timeout) {
+                // Anything applied elsewhere after this point would be past the snapshot
+                assertThat(fenced).isTrue();
+                return super.endOffsets(partitions, timeout);
+            }
+        };
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, Node.noNode(), new Node[0], new Node[0])));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L));
+        consumer.updateEndOffsets(Map.of(P0, 2L));
+        byte[] a = codec.toJson(eligibility("A")).getBytes(StandardCharsets.UTF_8);
+        byte[] b = codec.toJson(eligibility("B")).getBytes(StandardCharsets.UTF_8);
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0L, "2026:A", a));
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1L, "2026:B", b));
+        });
+        doReturnConsumer(consumer);
+        doAnswer(inv -> fenced = true).when(eligibilityRepository).fenceWrites();
+        when(eligibilityRepository.replaceAll(anyCollection())).thenReturn(2);
+
+        EligibilityRebuild.Result result = rebuild.rebuild();
+
+        assertThat(result.records()).isEqualTo(2);
+        assertThat(result.rows()).isEqualTo(2);
+        InOrder order = inOrder(transactionManager, eligibilityRepository, resumeOffsets);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(eligibilityRepository).fenceWrites();
+        order.verify(eligibilityRepository).replaceAll(anyCollection());
+        order.verify(transactionManager).commit(any());
+        order.verify(resumeOffsets).resumeAt(Map.of(P0, 2L));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void doReturnConsumer(Consumer<String, byte[]> consumer) {
+        when(consumerFactory.createConsumer(isNull(), eq("les-eligibility-rebuild"), isNull(), any(Properties.class)))
+                .thenReturn((Consumer) consumer);
+    }
+
+    private static LmrWithdrawEligibilityEvent eligibility(String lmrId) {
+        LmrWithdrawEligibilityEvent evt = new LmrWithdrawEligibilityEvent();
+        evt.setPlanningYear("2026");
+        evt.setLmrId(lmrId);
+        evt.setCanWithdraw(true);
+        evt.setVersion(1L);
+        evt.setUpdatedAt(Instant.parse("2026-03-02T10:15:30Z"));
+        return evt;
+    }
+}
@@ -0,0 +1,71 @@
+package org.misoenergy.les.kafka;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EligibilityResumeOffsetsTest {
+
+    private static final TopicPartition P0 = new TopicPartition("lmr.withdraw.eligibility.v1", 0);
+    private static final TopicPartition P1 = new TopicPartition("lmr.withdraw.eligibility.v1", 1);
+
+    private final EligibilityResumeOffsets resumeOffsets = new EligibilityResumeOffsets();
+    private MockConsumer<String, byte[]> consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(P0, P1));
+    }
+
+    @Test
+    void partitionBehindTheSnapshotResumesAtItsEndAndCommitsIt() {
+        consumer.seek(P0, 3L);
+        consumer.seek(P1, 12L);
+        resumeOffsets.resumeAt(Map.of(P0, 10L, P1, 10L));
+
+        resumeOffsets.onPartitionsAssigned(consumer, List.of(P0, P1));
+
+        assertThat(consumer.position(P0)).isEqualTo(10L);
+        assertThat(consumer.position(P1)).isEqualTo(12L);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.of(P0, P1));
+        assertThat(committed.get(P0)).isEqualTo(new OffsetAndMetadata(10L));
+        assertThat(committed.get(P1)).isNull();
+    }
+
+    @Test
+    void eachOffsetIsUsedOnceAndOnlyForAssignedPartitions() {
+        consumer.seek(P0, 3L);
+        consumer.seek(P1, 4L);
+        resumeOffsets.resumeAt(Map.of(P0, 10L, P1, 10L));
+
+        resumeOffsets.onPartitionsAssigned(consumer, List.of(P0));
+        consumer.seek(P0, 5L);
+        resumeOffsets.onPartitionsAssigned(consumer, List.of(P0, P1));
+
+        assertThat(consumer.position(P0)).isEqualTo(5L);
+        assertThat(consumer.position(P1)).isEqualTo(10L);
+    }
+
+    @Test
+    void newRebuildReplacesThePendingOffsets() {
+        consumer.seek(P0, 3L);
+        consumer.seek(P1, 4L);
+        resumeOffsets.resumeAt(Map.of(P0, 10L, P1, 10L));
+        resumeOffsets.resumeAt(Map.of(P0, 20L));
+
+        resumeOffsets.onPartitionsAssigned(consumer, List.of(P0, P1));
+
+        assertThat(consumer.position(P0)).isEqualTo(20L);
+        assertThat(consumer.position(P1)).isEqualTo(4L);
+    }
+}
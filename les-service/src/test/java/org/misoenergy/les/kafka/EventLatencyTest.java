@@ -0,0 +1,53 @@
+package org.misoenergy.les.kafka;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLatencyTest {
+
+    private static final String TOPIC = "lmr.withdraw.completed.v1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventLatency eventLatency;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        eventLatency = new EventLatency(meterRegistry);
+    }
+
+    @Test
+    void recordsTheTimeSinceOccurrencePerTopic() {
+        eventLatency.record(TOPIC, Instant.now().minus(Duration.ofSeconds(30)));
+        eventLatency.record("lmr.withdraw.rejected.v1", Instant.now());
+
+        Timer timer = meterRegistry.get("kafka.event.latency").tag("topic", TOPIC).timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.SECONDS)).isBetween(30.0, 40.0);
+        assertThat(meterRegistry.get("kafka.event.latency").timers()).hasSize(2);
+    }
+
+    @Test
+    void occurrenceAheadOfThisClockIsRecordedAsZero() {
+        eventLatency.record(TOPIC, Instant.now().plus(Duration.ofMinutes(1)));
+
+        Timer timer = meterRegistry.get("kafka.event.latency").tag("topic", TOPIC).timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    @Test
+    void eventWithoutOccurrenceIsNotRecorded() {
+        eventLatency.record(TOPIC, null);
+
+        assertThat(meterRegistry.find("kafka.event.latency").timer()).isNull();
+    }
+}
@@ -0,0 +1,103 @@
+package org.misoenergy.les.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.les.deadletter.DeadLetterService;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.events.LmrWithdrawEligibilityEvent;
+import org.misoenergy.les.idempotency.IdempotencyService;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.misoenergy.les.service.EligibilityCache;
+import org.misoenergy.les.service.EnrollmentService;
+import org.misoenergy.les.service.EnrollmentStream;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LesKafkaConsumersTest {
+
+    private static final String TOPIC = "lmr.withdraw.eligibility.v1";
+    private static final Instant AT = Instant.parse("2026-03-02T10:15:30Z");
+
+    @Mock
+    private EventCodec eventCodec;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private LMRWithdrawEligibilityRepository eligibilityRepository;
+    @Mock
+    private EligibilityCache eligibilityCache;
+    @Mock
+    private EnrollmentStream enrollmentStream;
+    @Mock
+    private EnrollmentService enrollmentService;
+    @Mock
+    private DeadLetterService deadLetterService;
+    @Mock
+    private EventLatency eventLatency;
+
+    private LesKafkaConsumers consumers;
+
+    @BeforeEach
+    void setUp() {
+        consumers = new LesKafkaConsumers(eventCodec, idempotencyService, eligibilityRepository, eligibilityCache,
+                enrollmentStream, enrollmentService, deadLetterService, eventLatency);
+    }
+
+    @Test
+    void batchNotifiesAndCachesOnlyTheRowsTheDatabaseApplied() throws Exception {
+        List<ConsumerRecord<String, byte[]>> poll = new ArrayList<>();
+        poll.add(eligibility(0, "A", 1));
+        poll.add(eligibility(1, "A", 2));
+        poll.add(eligibility(2, "A", 3));
+        poll.add(eligibility(3, "B", 1));
+        // C survives the batch's own coalescing, but the stored state is newer, so the upsert rejects it
+        poll.add(eligibility(4, "C", 1));
+        EligibilityUpdate newestA = update("A", 3);
+        EligibilityUpdate newestB = update("B", 1);
+        when(eligibilityRepository.applyAllIfNewer(any())).thenReturn(List.of(newestA, newestB));
+
+        consumers.onEligibilityBatch(poll);
+
+        verify(enrollmentStream).eligibilityChanged("2026", "A");
+        verify(enrollmentStream).eligibilityChanged("2026", "B");
+        verify(enrollmentStream, never()).eligibilityChanged("2026", "C");
+        verify(enrollmentStream, times(2)).eligibilityChanged(anyString(), anyString());
+        verify(eligibilityCache).applied(newestA);
+        verify(eligibilityCache).applied(newestB);
+        verify(eligibilityCache, times(2)).applied(any());
+        verifyNoMoreInteractions(eligibilityCache);
+        verify(eventLatency, times(5)).record(any(), any());
+    }
+
+    private ConsumerRecord<String, byte[]> eligibility(long offset, String lmrId, long version) throws Exception {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, 0, offset, "2026:" + lmrId, new byte[0]);
+        LmrWithdrawEligibilityEvent evt = new LmrWithdrawEligibilityEvent();
+        evt.setPlanningYear("2026");
+        evt.setLmrId(lmrId);
+        evt.setVersion(version);
+        evt.setUpdatedAt(AT);
+        evt.setOccurredAt(AT);
+        when(eventCodec.decode(record, LmrWithdrawEligibilityEvent.class)).thenReturn(evt);
+        return record;
+    }
+
+    private static EligibilityUpdate update(String lmrId, long version) {
+        return new EligibilityUpdate("2026", lmrId, false, null, List.of(), version, AT);
+    }
+}
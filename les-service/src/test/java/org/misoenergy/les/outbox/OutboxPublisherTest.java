@@ -0,0 +1,174 @@
+package org.misoenergy.les.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.les.events.EventCodec;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxPublisherTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private OutboxPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new OutboxPublisher(outboxRepository, kafkaTemplate, new ObjectMapper(), 500, 2, 1000, 60000, "test", "poll", 4, false, new SimpleMeterRegistry());
+    }
+
+    /** Sends complete at once unless a payload has its own ack here; every sent payload is recorded. */
+    private final Map<String, Supplier<CompletableFuture<Object>>> acks = new HashMap<>();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    void sendBatch_acksEveryEntry_whenAllSendsSucceed() {
+        stubSends();
+
+        List<Long> acked = publisher.sendBatch(List.of(
+                entry(1L, "2026:LMR-001", "a"),
+                entry(2L, "2026:LMR-002", "b"),
+                entry(3L, "2026:LMR-001", "c"),
+                entry(4L, "2026:LMR-003", "d")));
+
+        assertThat(acked).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void sendBatch_holdsBackLaterEntriesOfAFailedKey() {
+        stubSends();
+        acks.put("a", () -> CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        List<Long> acked = publisher.sendBatch(List.of(
+                entry(1L, "2026:LMR-001", "a"),
+                entry(2L, "2026:LMR-002", "b"),
+                entry(3L, "2026:LMR-001", "c")));
+
+        assertThat(acked).containsExactly(2L);
+        assertThat(sent).doesNotContain("c");
+    }
+
+    @Test
+    void sendBatch_slowKeyDoesNotBlockKeysOnOtherLanes() {
+        // LMR-001 and LMR-002 hash to different lanes; LMR-001's ack only arrives once LMR-002 has sent both entries
+        CompletableFuture<Object> slowAck = new CompletableFuture<>();
+        stubSends();
+        acks.put("a", () -> slowAck);
+        acks.put("c", () -> {
+            slowAck.complete(null);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<Long> acked = publisher.sendBatch(List.of(
+                entry(1L, "2026:LMR-001", "a"),
+                entry(2L, "2026:LMR-002", "b"),
+                entry(3L, "2026:LMR-002", "c")));
+
+        assertThat(acked).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void publishUnpublished_marksAckedIdsWithOneUpdate() {
+        when(outboxRepository.claimBatch(anyString(), anyInt(), anyLong()))
+                .thenReturn(List.of(entry(2L, "2026:LMR-002", "b"), entry(1L, "2026:LMR-001", "a")));
+        stubSends();
+
+        publisher.publishUnpublished();
+
+        verify(outboxRepository).markPublished(eq(List.of(1L, 2L)), any());
+        verify(outboxRepository, never()).releaseClaims(any(), anyString());
+    }
+
+    @Test
+    void publishUnpublished_releasesClaimsOfHeldBackEntries() {
+        when(outboxRepository.claimBatch(anyString(), anyInt(), anyLong()))
+                .thenReturn(List.of(entry(1L, "2026:LMR-001", "a"), entry(2L, "2026:LMR-002", "b"), entry(3L, "2026:LMR-001", "c")));
+        stubSends();
+        acks.put("a", () -> CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        publisher.publishUnpublished();
+
+        verify(outboxRepository).markPublished(eq(List.of(2L)), any());
+        verify(outboxRepository).releaseClaims(eq(List.of(1L, 3L)), anyString());
+    }
+
+    @Test
+    void publishEntries_claimsADeferredEntryAsSoonAsTheOlderEntryOfItsKeyIsAcked() {
+        OutboxEntry first = entry(1L, "2026:LMR-001", "a");
+        OutboxEntry second = entry(2L, "2026:LMR-001", "b");
+        // The second transaction's entry cannot be claimed while the first one is still unpublished
+        when(outboxRepository.claimByIds(eq(Set.of(2L)), anyString(), anyLong())).thenReturn(List.of(), List.of(second));
+        when(outboxRepository.claimByIds(eq(Set.of(1L)), anyString(), anyLong())).thenReturn(List.of(first));
+        stubSends();
+
+        publisher.publishEntries(List.of(second));
+        publisher.publishEntries(List.of(first));
+
+        verify(outboxRepository).markPublished(eq(List.of(1L)), any());
+        verify(outboxRepository).markPublished(eq(List.of(2L)), any());
+        assertThat(sent).containsExactly("a", "b");
+    }
+
+    @Test
+    void toRecord_sendsJsonAsUtf8AndBinaryAsStored_withEncodingHeader() {
+        OutboxEntry json = entry(1L, "2026:LMR-001", "{\"a\":\"é\"}");
+        OutboxEntry binary = entry(2L, "2026:LMR-001", null);
+        binary.setPayloadBin(new byte[] {1, 10, 3});
+
+        ProducerRecord<String, byte[]> jsonRecord = OutboxPublisher.toRecord(json);
+        ProducerRecord<String, byte[]> binaryRecord = OutboxPublisher.toRecord(binary);
+
+        assertThat(new String(jsonRecord.value(), StandardCharsets.UTF_8)).isEqualTo("{\"a\":\"é\"}");
+        assertThat(jsonRecord.headers().lastHeader(EventCodec.HEADER).value()).asString().isEqualTo(EventCodec.JSON);
+        assertThat(binaryRecord.value()).containsExactly(1, 10, 3);
+        assertThat(binaryRecord.headers().lastHeader(EventCodec.HEADER).value()).asString().isEqualTo(EventCodec.BINARY);
+        assertThat(binaryRecord.key()).isEqualTo("2026:LMR-001");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubSends() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(inv -> {
+            ProducerRecord<String, byte[]> record = inv.getArgument(0);
+            String payload = new String(record.value(), StandardCharsets.UTF_8);
+            sent.add(payload);
+            return acks.getOrDefault(payload, () -> CompletableFuture.completedFuture(null)).get();
+        });
+    }
+
+    private OutboxEntry entry(Long id, String key, String payload) {
+        OutboxEntry e = new OutboxEntry();
+        e.setId(id);
+        e.setTopic("topic");
+        e.setMessageKey(key);
+        e.setPayload(payload);
+        return e;
+    }
+}
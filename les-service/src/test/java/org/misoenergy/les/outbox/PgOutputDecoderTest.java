@@ -0,0 +1,109 @@
+package org.misoenergy.les.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgOutputDecoderTest {
+
+    private final PgOutputDecoder decoder = new PgOutputDecoder();
+
+    @Test
+    void decodesOutboxInsertAfterRelation() throws IOException {
+        decoder.decode(relation(16400, "outbox_entry", "id", "topic", "message_key", "payload", "created_at"));
+
+        PgOutputDecoder.Message msg = decoder.decode(insert(16400, "42", "lmr.approved", null, "{\"a\":1}", "2026-10-17 10:00:00"));
+
+        assertThat(msg.kind()).isEqualTo(PgOutputDecoder.Kind.INSERT);
+        assertThat(msg.entry().getId()).isEqualTo(42L);
+        assertThat(msg.entry().getTopic()).isEqualTo("lmr.approved");
+        assertThat(msg.entry().getMessageKey()).isNull();
+        assertThat(msg.entry().getPayload()).isEqualTo("{\"a\":1}");
+        assertThat(msg.entry().getCreatedAt())
+                .isEqualTo(LocalDateTime.of(2026, 10, 17, 10, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Test
+    void decodesBinaryPayloadFromByteaHex() throws IOException {
+        decoder.decode(relation(16400, "outbox_entry", "id", "topic", "payload", "payload_bin"));
+
+        PgOutputDecoder.Message msg = decoder.decode(insert(16400, "7", "lmr.withdraw.eligibility.v1", null, "\\x010a03"));
+
+        assertThat(msg.entry().getPayload()).isNull();
+        assertThat(msg.entry().getPayloadBin()).containsExactly(1, 10, 3);
+    }
+
+    @Test
+    void ignoresInsertsOnOtherTables() throws IOException {
+        decoder.decode(relation(16500, "processed_event", "id"));
+
+        assertThat(decoder.decode(insert(16500, "1")).kind()).isEqualTo(PgOutputDecoder.Kind.OTHER);
+    }
+
+    @Test
+    void commitCarriesEndLsn() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('C');
+        out.writeByte(0);
+        out.writeLong(100L);
+        out.writeLong(164L);
+        out.writeLong(0L);
+
+        PgOutputDecoder.Message msg = decoder.decode(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(msg.kind()).isEqualTo(PgOutputDecoder.Kind.COMMIT);
+        assertThat(msg.endLsn()).isEqualTo(164L);
+    }
+
+    private static ByteBuffer relation(int oid, String table, String... columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('R');
+        out.writeInt(oid);
+        writeString(out, "public");
+        writeString(out, table);
+        out.writeByte('d');
+        out.writeShort(columns.length);
+        for (String column : columns) {
+            out.writeByte(0);
+            writeString(out, column);
+            out.writeInt(25);
+            out.writeInt(-1);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static ByteBuffer insert(int oid, String... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('I');
+        out.writeInt(oid);
+        out.writeByte('N');
+        out.writeShort(values.length);
+        for (String value : values) {
+            if (value == null) {
+                out.writeByte('n');
+            } else {
+                byte[] b = value.getBytes(StandardCharsets.UTF_8);
+                out.writeByte('t');
+                out.writeInt(b.length);
+                out.write(b);
+            }
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.write(s.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+}
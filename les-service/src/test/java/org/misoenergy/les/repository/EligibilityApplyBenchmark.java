@@ -0,0 +1,102 @@
+package org.misoenergy.les.repository;
+
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Eligibility apply throughput against record count: one transaction per record (record listener) versus
+ * coalesced upserts of {@code les.kafka.eligibility.max-poll-records} (batch listener).
+ * <p>
+ * One connection is reused throughout, as a listener thread would hold one from the pool.
+ * <p>
+ * Not a test; run it against a database migrated by LES (start the service once, or run Flyway):
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.misoenergy.les.repository.EligibilityApplyBenchmark \
+ *     -Dbench.url=jdbc:postgresql://localhost:5432/lesdb -Dbench.records=1000,10000,50000
+ * </pre>
+ * Each record count is a republish in which every LMR appears {@code bench.updates-per-key} times (default 2)
+ * with increasing versions. Rows are written under a throwaway planning year and deleted afterwards.
+ */
+public class EligibilityApplyBenchmark {
+
+    public static void main(String[] args) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/lesdb"),
+                System.getProperty("bench.user", "les"),
+                System.getProperty("bench.password", "les"), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        LMRWithdrawEligibilityRepositoryCustomImpl repository = new LMRWithdrawEligibilityRepositoryCustomImpl(jdbcTemplate);
+        int pollSize = Integer.getInteger("bench.max-poll-records", 2000);
+        int updatesPerKey = Integer.getInteger("bench.updates-per-key", 2);
+
+        System.out.printf("%10s %10s %14s %14s%n", "records", "mode", "ms", "records/s");
+        for (String count : System.getProperty("bench.records", "1000,10000,50000").split(",")) {
+            int records = Integer.parseInt(count.trim());
+
+            String perRecordYear = benchYear();
+            List<EligibilityUpdate> perRecord = republish(perRecordYear, records, updatesPerKey);
+            long start = System.nanoTime();
+            for (EligibilityUpdate u : perRecord) {
+                tx.executeWithoutResult(s -> repository.applyIfNewer(u.planningYear(), u.lmrId(), u.canWithdraw(),
+                        u.reason(), u.blockingFlags(), u.version(), u.updatedAt()));
+            }
+            report(records, "record", System.nanoTime() - start);
+
+            String batchYear = benchYear();
+            List<EligibilityUpdate> batched = republish(batchYear, records, updatesPerKey);
+            start = System.nanoTime();
+            for (int from = 0; from < batched.size(); from += pollSize) {
+                List<EligibilityUpdate> poll = batched.subList(from, Math.min(from + pollSize, batched.size()));
+                tx.executeWithoutResult(s -> repository.applyAllIfNewer(poll));
+            }
+            report(records, "batch", System.nanoTime() - start);
+
+            cleanUp(jdbcTemplate, perRecordYear);
+            cleanUp(jdbcTemplate, batchYear);
+        }
+        dataSource.destroy();
+    }
+
+    /** {@code records} updates over {@code records / updatesPerKey} LMRs, each LMR's versions in order. */
+    private static List<EligibilityUpdate> republish(String planningYear, int records, int updatesPerKey) {
+        int keys = Math.max(1, records / updatesPerKey);
+        Instant now = Instant.now();
+        List<EligibilityUpdate> updates = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            long version = i / keys + 1;
+            boolean canWithdraw = version % 2 == 1;
+            updates.add(new EligibilityUpdate(planningYear, "LMR-" + (i % keys), canWithdraw,
+                    canWithdraw ? null : "Blocked", canWithdraw ? List.of() : List.of("PENDING_REVIEW"),
+                    version, now));
+        }
+        return updates;
+    }
+
+    /** Fits planning_year VARCHAR(16). */
+    private static String benchYear() {
+        return String.format("BENCH-%08x", ThreadLocalRandom.current().nextInt());
+    }
+
+    private static void report(int records, String mode, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        System.out.printf("%10d %10s %14.1f %14.0f%n", records, mode, ms, records / (ms / 1000.0));
+    }
+
+    private static void cleanUp(JdbcTemplate jdbcTemplate, String planningYear) {
+        jdbcTemplate.update("""
+                DELETE FROM lmr_eligibility_blocking_flags WHERE eligibility_id IN
+                    (SELECT id FROM lmr_withdraw_eligibility WHERE planning_year = ?)
+                """, planningYear);
+        jdbcTemplate.update("DELETE FROM lmr_withdraw_eligibility WHERE planning_year = ?", planningYear);
+    }
+}
@@ -0,0 +1,50 @@
+package org.misoenergy.les.repository;
+
+import org.junit.jupiter.api.Test;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LMRWithdrawEligibilityRepositoryCustomImplTest {
+
+    private static final Instant T0 = Instant.parse("2026-10-17T10:00:00Z");
+
+    @Test
+    void newestPerKeyKeepsHighestVersionRegardlessOfArrivalOrder() {
+        List<EligibilityUpdate> survivors = LMRWithdrawEligibilityRepositoryCustomImpl.newestPerKey(List.of(
+                update("A", 2, T0, true),
+                update("B", 1, T0, true),
+                update("A", 3, T0, false),
+                update("A", 1, T0.plusSeconds(60), true)));
+
+        assertThat(survivors).extracting(EligibilityUpdate::lmrId, EligibilityUpdate::version, EligibilityUpdate::canWithdraw)
+                .containsExactly(
+                        tuple("A", 3L, false),
+                        tuple("B", 1L, true));
+    }
+
+    @Test
+    void newestPerKeyBreaksVersionTiesOnUpdatedAt() {
+        List<EligibilityUpdate> survivors = LMRWithdrawEligibilityRepositoryCustomImpl.newestPerKey(List.of(
+                update("A", 0, T0.plusSeconds(5), false),
+                update("A", 0, T0, true)));
+
+        assertThat(survivors).singleElement().extracting(EligibilityUpdate::canWithdraw).isEqualTo(false);
+    }
+
+    @Test
+    void copyTextEscapesDelimitersAndMarksNull() {
+        assertThat(LMRWithdrawEligibilityRepositoryCustomImpl.copyText(new StringBuilder(), "a\tb\\c\nd\re").toString())
+                .isEqualTo("a\\tb\\\\c\\nd\\re");
+        assertThat(LMRWithdrawEligibilityRepositoryCustomImpl.copyText(new StringBuilder(), null).toString())
+                .isEqualTo("\\N");
+    }
+
+    private static EligibilityUpdate update(String lmrId, long version, Instant updatedAt, boolean canWithdraw) {
+        return new EligibilityUpdate("2026-2027", lmrId, canWithdraw, null, List.of(), version, updatedAt);
+    }
+}
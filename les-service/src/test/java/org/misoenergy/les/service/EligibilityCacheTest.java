@@ -0,0 +1,96 @@
+package org.misoenergy.les.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.les.domain.LMREnrollment;
+import org.misoenergy.les.domain.LMRWithdrawEligibility;
+import org.misoenergy.les.repository.LMREnrollmentRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMRWithdrawEligibilityRepositoryCustom.EligibilityUpdate;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EligibilityCacheTest {
+
+    @Mock
+    private LMREnrollmentRepository enrollmentRepository;
+    @Mock
+    private LMRWithdrawEligibilityRepository eligibilityRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EligibilityCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new EligibilityCache(enrollmentRepository, eligibilityRepository, jdbcTemplate, meterRegistry,
+                100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void get_queriesOncePerKey_andReportsHits() {
+        LMREnrollment enrollment = new LMREnrollment();
+        enrollment.setLmrId("LMR-001");
+        enrollment.setPlanningYear("2025-2026");
+        when(enrollmentRepository.findByLmrId("LMR-001")).thenReturn(Optional.of(enrollment));
+        when(eligibilityRepository.findByPlanningYearAndLmrId("2025-2026", "LMR-001"))
+                .thenReturn(Optional.of(eligibility("LMR-001", 3, true)));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.get("LMR-001")).map(LMRWithdrawEligibility::isCanWithdraw).contains(true);
+        }
+
+        verify(enrollmentRepository, times(1)).findByLmrId("LMR-001");
+        verify(eligibilityRepository, times(1)).findByPlanningYearAndLmrId("2025-2026", "LMR-001");
+        assertThat(meterRegistry.get("les.eligibility.cache.hit.ratio").gauge().value()).isEqualTo(0.8);
+    }
+
+    @Test
+    void applied_keepsTheNewerState() {
+        cache.applied(update("LMR-002", 5, false));
+        cache.applied(update("LMR-002", 4, true));
+
+        assertThat(cache.get("2025-2026", "LMR-002")).map(LMRWithdrawEligibility::getVersion).contains(5L);
+    }
+
+    @Test
+    void applied_replacesCachedAbsence() {
+        when(eligibilityRepository.findByPlanningYearAndLmrId("2025-2026", "LMR-003")).thenReturn(Optional.empty());
+        assertThat(cache.get("2025-2026", "LMR-003")).isEmpty();
+
+        cache.applied(update("LMR-003", 1, true));
+
+        assertThat(cache.get("2025-2026", "LMR-003")).map(LMRWithdrawEligibility::isCanWithdraw).contains(true);
+    }
+
+    private static EligibilityUpdate update(String lmrId, long version, boolean canWithdraw) {
+        return new EligibilityUpdate("2025-2026", lmrId, canWithdraw, canWithdraw ? null : "Blocked", List.of(),
+                version, Instant.parse("2025-06-01T00:00:00Z"));
+    }
+
+    private static LMRWithdrawEligibility eligibility(String lmrId, long version, boolean canWithdraw) {
+        LMRWithdrawEligibility e = new LMRWithdrawEligibility();
+        e.setPlanningYear("2025-2026");
+        e.setLmrId(lmrId);
+        e.setCanWithdraw(canWithdraw);
+        e.setVersion(version);
+        e.setUpdatedAt(Instant.parse("2025-06-01T00:00:00Z"));
+        return e;
+    }
+}
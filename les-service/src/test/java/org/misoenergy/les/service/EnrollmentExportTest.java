@@ -0,0 +1,71 @@
+package org.misoenergy.les.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.misoenergy.les.domain.EnrollmentStatus;
+import org.misoenergy.les.domain.ResourceType;
+import org.misoenergy.les.repository.LMREnrollmentRepository;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentExportRow;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentFilter;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.ExportPage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class EnrollmentExportTest {
+
+    @Test
+    void csvLine_quotesOnlyFieldsThatNeedIt() {
+        Instant t = Instant.parse("2025-06-01T12:00:00Z");
+        EnrollmentExportRow row = new EnrollmentExportRow("LMR-001", "Plant, \"North\"", "MP", ResourceType.LMR_DR,
+                "2025-2026", EnrollmentStatus.WITHDRAW_REJECTED, t, t, "line1\nline2", t, false, "Blocked",
+                List.of("OFFER", "ZRC"), 4L, t);
+
+        assertThat(EnrollmentExport.csvLine(row)).isEqualTo(
+                "LMR-001,\"Plant, \"\"North\"\"\",MP,LMR_DR,2025-2026,WITHDRAW_REJECTED,2025-06-01T12:00:00Z,"
+                        + "2025-06-01T12:00:00Z,\"line1\nline2\",2025-06-01T12:00:00Z,false,Blocked,OFFER;ZRC,4,"
+                        + "2025-06-01T12:00:00Z\n");
+    }
+
+    @Test
+    void csvLine_leavesMissingEligibilityEmpty() {
+        Instant t = Instant.parse("2025-06-01T12:00:00Z");
+        EnrollmentExportRow row = new EnrollmentExportRow("LMR-002", "Plant", "MP", ResourceType.LMR_BTMG,
+                "2025-2026", EnrollmentStatus.DRAFT, t, t, null, null, null, null, List.of(), null, null);
+
+        assertThat(EnrollmentExport.csvLine(row))
+                .isEqualTo("LMR-002,Plant,MP,LMR_BTMG,2025-2026,DRAFT,2025-06-01T12:00:00Z,2025-06-01T12:00:00Z,,,,,,,\n");
+        assertThat(EnrollmentExport.CSV_COLUMNS).hasSize(15);
+    }
+
+    @Test
+    void write_pagesByIdUntilAShortPage() throws Exception {
+        LMREnrollmentRepository repository = mock(LMREnrollmentRepository.class);
+        EnrollmentFilter filter = new EnrollmentFilter(null, null, null, null);
+        when(repository.findExportPage(filter, 0L, 2)).thenReturn(new ExportPage(List.of(row("A"), row("B")), 7L));
+        when(repository.findExportPage(filter, 7L, 2)).thenReturn(new ExportPage(List.of(row("C")), 9L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = new EnrollmentExport(repository, new ObjectMapper(), 2).write(filter, EnrollmentExport.Format.CSV, out);
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(4)
+                .extracting(line -> line.substring(0, line.indexOf(','))).containsExactly("lmrId", "A", "B", "C");
+        verify(repository).findExportPage(filter, 0L, 2);
+        verify(repository).findExportPage(filter, 7L, 2);
+        verifyNoMoreInteractions(repository);
+    }
+
+    private static EnrollmentExportRow row(String lmrId) {
+        return new EnrollmentExportRow(lmrId, "Plant", "MP", ResourceType.LMR_DR, "2025-2026", EnrollmentStatus.DRAFT,
+                null, null, null, null, null, null, List.of(), null, null);
+    }
+}
@@ -0,0 +1,151 @@
+package org.misoenergy.les.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.misoenergy.les.repository.LMREnrollmentRepository;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentDraft;
+import org.misoenergy.les.service.EnrollmentImport.Format;
+import org.misoenergy.les.service.EnrollmentImport.Summary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EnrollmentImportTest {
+
+    private static final String CSV_HEADER = "lmrId,marketParticipantName,lmrName,resourceType,planningYear\n";
+
+    private LMREnrollmentRepository enrollmentRepository;
+    private EnrollmentImport enrollmentImport;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository = mock(LMREnrollmentRepository.class);
+        enrollmentImport = new EnrollmentImport(enrollmentRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), new SimpleMeterRegistry(),
+                3);
+    }
+
+    @Test
+    void csv_reportsEveryRowInOrder_andInsertsOnlyNewOnes() throws Exception {
+        when(enrollmentRepository.findExistingLmrIds(any())).thenReturn(Set.of("LMR-OLD"));
+        when(enrollmentRepository.insertDrafts(anyList())).thenAnswer(inv -> {
+            List<EnrollmentDraft> drafts = inv.getArgument(0);
+            boolean[] inserted = new boolean[drafts.size()];
+            // LMR-RACE was enrolled by someone else between the check and the insert
+            for (int i = 0; i < inserted.length; i++) inserted[i] = !drafts.get(i).lmrId().equals("LMR-RACE");
+            return inserted;
+        });
+        String csv = """
+                planningYear,lmrId,lmrName,marketParticipantName,resourceType
+                2025-2026,LMR-1,"Plant ""North"", unit 1",MP,LMR_DR
+                2025-2026,LMR-OLD,Plant,MP,LMR_DR
+                2025-2026,LMR-1,Plant,MP,LMR_DR
+
+                2025-2026,LMR-2,"two
+                lines",MP,LMR_BTMG
+                2025-2026,LMR-3,Plant,MP,SOLAR
+                2025-2026,,Plant,MP,LMR_DR
+                2025-2026,LMR-RACE,Plant,MP,LMR_DR
+                """;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Summary summary = enrollmentImport.read(Format.CSV, stream(csv), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().toList()).containsExactly(
+                "{\"line\":2,\"lmrId\":\"LMR-1\",\"result\":\"CREATED\",\"message\":null}",
+                "{\"line\":3,\"lmrId\":\"LMR-OLD\",\"result\":\"DUPLICATE\",\"message\":\"LMR already exists\"}",
+                "{\"line\":4,\"lmrId\":\"LMR-1\",\"result\":\"DUPLICATE\",\"message\":\"Repeated in this upload\"}",
+                "{\"line\":6,\"lmrId\":\"LMR-2\",\"result\":\"CREATED\",\"message\":null}",
+                "{\"line\":8,\"lmrId\":\"LMR-3\",\"result\":\"INVALID\",\"message\":\"resourceType must be one of [LMR_DR, LMR_BTMG]\"}",
+                "{\"line\":9,\"lmrId\":null,\"result\":\"INVALID\",\"message\":\"lmrId must not be blank\"}",
+                "{\"line\":10,\"lmrId\":\"LMR-RACE\",\"result\":\"DUPLICATE\",\"message\":\"LMR already exists\"}",
+                "{\"summary\":{\"rows\":7,\"created\":2,\"duplicates\":3,\"invalid\":2}}");
+        assertThat(summary.created()).isEqualTo(2);
+        // Chunks of 3 rows: one existence query and one insert batch each
+        verify(enrollmentRepository, times(3)).findExistingLmrIds(any());
+    }
+
+    @Test
+    void csv_withoutRequiredColumns_isRejectedBeforeAnyOutput() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> enrollmentImport.read(Format.CSV, stream("lmrId,lmrName\nLMR-1,Plant\n"), out))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("CSV header");
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void ndjson_reportsMalformedLinesAndKeepsGoing() throws Exception {
+        when(enrollmentRepository.insertDrafts(anyList())).thenAnswer(inv -> {
+            boolean[] inserted = new boolean[((List<?>) inv.getArgument(0)).size()];
+            java.util.Arrays.fill(inserted, true);
+            return inserted;
+        });
+        String ndjson = """
+                {"lmrId":"LMR-1","marketParticipantName":"MP","lmrName":"Plant","resourceType":"LMR_DR","planningYear":"2025-2026"}
+                {"lmrId":"LMR-2",
+                {"lmrId":"LMR-3","marketParticipantName":"MP","lmrName":"Plant","resourceType":"LMR_DR","planningYear":"2025-2026"}
+                """;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Summary summary = enrollmentImport.read(Format.NDJSON, stream(ndjson), out);
+
+        assertThat(summary).isEqualTo(new Summary(3, 2, 0, 1));
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().toList().get(1))
+                .startsWith("{\"line\":2,\"lmrId\":null,\"result\":\"INVALID\",\"message\":\"Malformed row: ");
+    }
+
+    @Test
+    void csv_unclosedQuote_isOneInvalidRow_andTheRowsAfterItStillImport() throws Exception {
+        when(enrollmentRepository.insertDrafts(anyList())).thenAnswer(inv -> {
+            boolean[] inserted = new boolean[((List<?>) inv.getArgument(0)).size()];
+            java.util.Arrays.fill(inserted, true);
+            return inserted;
+        });
+        String csv = "lmrId,marketParticipantName,lmrName,resourceType,planningYear\r\n"
+                + "LMR-2,MP,\"two\r\nlines\",LMR_DR,2025-2026\r\n"
+                + "LMR-1,MP,\"Plant,LMR_DR,2025-2026\r\n"
+                + "LMR-3,MP,Plant,LMR_DR,2025-2026\r\n";
+        String huge = "LMR-4,MP,\"" + "x".repeat(10_000) + "\n".repeat(50) + "\nLMR-5,MP,Plant,LMR_DR,2025-2026\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Summary summary = enrollmentImport.read(Format.CSV, stream(csv), out);
+        ByteArrayOutputStream hugeOut = new ByteArrayOutputStream();
+        Summary hugeSummary = enrollmentImport.read(Format.CSV, stream(CSV_HEADER + huge), hugeOut);
+
+        List<String> report = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(report.get(0)).isEqualTo("{\"line\":2,\"lmrId\":\"LMR-2\",\"result\":\"CREATED\",\"message\":null}");
+        assertThat(report.get(1)).startsWith("{\"line\":4,\"lmrId\":null,\"result\":\"INVALID\"")
+                .contains("quoted field that is not closed");
+        assertThat(report.get(2)).isEqualTo("{\"line\":5,\"lmrId\":\"LMR-3\",\"result\":\"CREATED\",\"message\":null}");
+        assertThat(summary).isEqualTo(new Summary(3, 2, 0, 1));
+        // Past the cap the record is cut at its first line too; the blank lines after it are skipped
+        assertThat(hugeOut.toString(StandardCharsets.UTF_8).lines().toList().get(1))
+                .isEqualTo("{\"line\":53,\"lmrId\":\"LMR-5\",\"result\":\"CREATED\",\"message\":null}");
+        assertThat(hugeSummary).isEqualTo(new Summary(2, 1, 0, 1));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,25 +1,35 @@
 package org.misoenergy.les.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.misoenergy.les.domain.EnrollmentStatus;
 import org.misoenergy.les.domain.LMREnrollment;
+import org.misoenergy.les.domain.ResourceType;
+import org.misoenergy.les.events.EventCodec;
+import org.misoenergy.les.outbox.OutboxDispatcher;
 import org.misoenergy.les.outbox.OutboxRepository;
 import org.misoenergy.les.repository.LMREnrollmentRepository;
-import org.misoenergy.les.repository.LMRWithdrawEligibilityRepository;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentFilter;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.EnrollmentSummary;
+import org.misoenergy.les.repository.LMREnrollmentRepositoryCustom.Keyset;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,15 +39,21 @@ class EnrollmentServiceTest {
     @Mock
     private LMREnrollmentRepository enrollmentRepository;
     @Mock
-    private LMRWithdrawEligibilityRepository eligibilityRepository;
+    private EligibilityCache eligibilityCache;
     @Mock
     private OutboxRepository outboxRepository;
+    @Mock
+    private OutboxDispatcher outboxDispatcher;
+    @Mock
+    private EnrollmentStream enrollmentStream;
 
+    private SimpleMeterRegistry meterRegistry;
     private EnrollmentService service;
 
     @BeforeEach
     void setUp() {
-        service = new EnrollmentService(enrollmentRepository, eligibilityRepository, outboxRepository, new ObjectMapper());
+        meterRegistry = new SimpleMeterRegistry();
+        service = new EnrollmentService(enrollmentRepository, eligibilityCache, outboxRepository, outboxDispatcher, new EventCodec(new ObjectMapper(), List.of()), meterRegistry, enrollmentStream);
     }
 
     // --- correctRejectedWithdrawal ---
@@ -78,6 +94,17 @@ class EnrollmentServiceTest {
         assertThat(captor.getValue().getStatus()).isEqualTo(EnrollmentStatus.APPROVED);
     }
 
+    @Test
+    void correctRejectedWithdrawal_pushesTheChangeToStreamSubscribers() {
+        LMREnrollment enrollment = withdrawRejectedEnrollment("LMR-010");
+        when(enrollmentRepository.findByLmrId("LMR-010")).thenReturn(Optional.of(enrollment));
+        when(enrollmentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.correctRejectedWithdrawal("LMR-010");
+
+        verify(enrollmentStream).enrollmentChanged(enrollment);
+    }
+
     @Test
     void correctRejectedWithdrawal_throwsNotFound_whenEnrollmentMissing() {
         when(enrollmentRepository.findByLmrId("UNKNOWN")).thenReturn(Optional.empty());
@@ -113,8 +140,78 @@ class EnrollmentServiceTest {
                 .hasMessageContaining("WITHDRAW_REJECTED");
     }
 
+    // --- withdraw turnaround ---
+
+    @Test
+    void onWithdrawCompleted_recordsTurnaroundFromRequest() {
+        LMREnrollment enrollment = new LMREnrollment();
+        enrollment.setLmrId("LMR-006");
+        enrollment.setStatus(EnrollmentStatus.WITHDRAWN_REQUESTED);
+        enrollment.setUpdatedAt(Instant.now().minusSeconds(3));
+        when(enrollmentRepository.findByLmrId("LMR-006")).thenReturn(Optional.of(enrollment));
+
+        service.onWithdrawCompleted("evt-1", "LMR-006", "2025-2026");
+
+        Timer timer = meterRegistry.get("withdraw.turnaround").tag("outcome", "completed").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.SECONDS)).isGreaterThanOrEqualTo(3);
+        assertThat(enrollment.getStatus()).isEqualTo(EnrollmentStatus.WITHDRAWN);
+    }
+
+    @Test
+    void onWithdrawCompleted_recordsNothing_whenNotRequested() {
+        LMREnrollment enrollment = new LMREnrollment();
+        enrollment.setLmrId("LMR-007");
+        enrollment.setStatus(EnrollmentStatus.APPROVED);
+        when(enrollmentRepository.findByLmrId("LMR-007")).thenReturn(Optional.of(enrollment));
+
+        service.onWithdrawCompleted("evt-2", "LMR-007", "2025-2026");
+
+        assertThat(meterRegistry.find("withdraw.turnaround").timer()).isNull();
+    }
+
+    // --- list ---
+
+    @Test
+    void list_returnsCursorOfLastItem_whenMoreRowsFollow() {
+        EnrollmentFilter filter = new EnrollmentFilter(EnrollmentStatus.APPROVED, null, null, null);
+        Instant t = Instant.parse("2025-06-01T12:00:00.123456Z");
+        when(enrollmentRepository.findPage(filter, null, 3))
+                .thenReturn(List.of(summary(9, t), summary(8, t), summary(7, t.minusSeconds(1))));
+
+        KeysetPage<EnrollmentSummary> page = service.list(filter, null, 2);
+
+        assertThat(page.items()).extracting(EnrollmentSummary::id).containsExactly(9L, 8L);
+        assertThat(Keyset.decode(page.nextCursor())).isEqualTo(new Keyset(t, 8));
+    }
+
+    @Test
+    void list_continuesAfterCursor_andEndsWithoutOne() {
+        EnrollmentFilter filter = new EnrollmentFilter(null, null, null, null);
+        Keyset after = new Keyset(Instant.parse("2025-06-01T12:00:00Z"), 8);
+        when(enrollmentRepository.findPage(eq(filter), eq(after), eq(51)))
+                .thenReturn(List.of(summary(7, Instant.parse("2025-06-01T11:00:00Z"))));
+
+        KeysetPage<EnrollmentSummary> page = service.list(filter, after.encode(), 50);
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void list_throwsBadRequest_forForeignCursor() {
+        assertThatThrownBy(() -> service.list(new EnrollmentFilter(null, null, null, null), "bm90LWEtY3Vyc29y", 50))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
     // --- helpers ---
 
+    private static EnrollmentSummary summary(long id, Instant updatedAt) {
+        return new EnrollmentSummary(id, "LMR-" + id, "Name", "Participant", ResourceType.LMR_DR, "2025-2026",
+                EnrollmentStatus.APPROVED, updatedAt);
+    }
+
     private LMREnrollment withdrawRejectedEnrollment(String lmrId) {
         LMREnrollment e = new LMREnrollment();
         e.setLmrId(lmrId);
@@ -0,0 +1,58 @@
+package org.misoenergy.les.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class EnrollmentStreamTest {
+
+    @Mock
+    private EligibilityCache eligibilityCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EnrollmentStream stream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stream = new EnrollmentStream(eligibilityCache, new ObjectMapper(), meterRegistry, Duration.ofMinutes(1), 100, 10);
+    }
+
+    @Test
+    void completedEmitterLeavesEveryLmrItSubscribedTo() {
+        SseEmitter emitter = stream.subscribe(List.of("LMR-001", "LMR-002"));
+        assertThat(subscribers()).containsOnlyKeys("LMR-001", "LMR-002");
+        assertThat(openStreams()).isEqualTo(1.0);
+
+        // Outside a request the emitter has no handler, so its callbacks are run directly
+        Runnable completion = (Runnable) ReflectionTestUtils.getField(emitter, "completionCallback");
+        Runnable timeout = (Runnable) ReflectionTestUtils.getField(emitter, "timeoutCallback");
+        completion.run();
+        timeout.run();
+
+        assertThat(subscribers()).isEmpty();
+        assertThat(openStreams()).isEqualTo(0.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> subscribers() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(stream, "subscribers");
+    }
+
+    private double openStreams() {
+        return meterRegistry.get("les.stream.subscribers").gauge().value();
+    }
+}
@@ -0,0 +1,34 @@
+package org.misoenergy.les.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTest {
+
+    private static final Instant UPDATED = Instant.parse("2025-06-01T10:15:30.123456789Z");
+
+    @Test
+    void tagsChangeWithTheVersionAndAreMicrosecondPrecise() {
+        assertThat(ETags.enrollment(UPDATED)).isEqualTo(ETags.enrollment(Instant.parse("2025-06-01T10:15:30.123456Z")));
+        assertThat(ETags.enrollment(UPDATED)).isNotEqualTo(ETags.enrollment(UPDATED.plusNanos(1_000)));
+        assertThat(ETags.eligibility(2, UPDATED)).isNotEqualTo(ETags.eligibility(3, UPDATED));
+        assertThat(ETags.eligibilityPending(UPDATED)).isNotEqualTo(ETags.eligibility(0, UPDATED));
+        assertThat(ETags.detail(UPDATED, null, null)).isNotEqualTo(ETags.detail(UPDATED, 1L, UPDATED));
+        assertThat(ETags.detail(UPDATED, 1L, UPDATED)).isNotEqualTo(ETags.detail(UPDATED, 2L, UPDATED));
+    }
+
+    @Test
+    void matches_followsIfNoneMatchRules() {
+        String etag = ETags.enrollment(UPDATED);
+
+        assertThat(ETags.matches(null, etag)).isFalse();
+        assertThat(ETags.matches(etag, etag)).isTrue();
+        assertThat(ETags.matches("W/" + etag, etag)).isTrue();
+        assertThat(ETags.matches("\"other\", " + etag, etag)).isTrue();
+        assertThat(ETags.matches("*", etag)).isTrue();
+        assertThat(ETags.matches("\"other\"", etag)).isFalse();
+    }
+}
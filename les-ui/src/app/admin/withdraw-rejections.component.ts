@@ -30,7 +30,7 @@ import { LesApiService, WithdrawRejectionDto } from '../services/les-api.service
         <div class="alert alert-error">{{ error }}</div>
       }
 
-      @if (loading) {
+      @if (loading && list.length === 0) {
         <p>Loading…</p>
       } @else if (list.length === 0) {
         <div class="card">
@@ -74,6 +74,13 @@ import { LesApiService, WithdrawRejectionDto } from '../services/les-api.service
             </tbody>
           </table>
         </div>
+        @if (nextCursor) {
+          <div class="more">
+            <button class="btn btn-secondary" (click)="loadList(nextCursor)" [disabled]="loading">
+              {{ loading ? 'Loading…' : 'Load more' }}
+            </button>
+          </div>
+        }
       }
     </div>
   `,
@@ -99,10 +106,12 @@ import { LesApiService, WithdrawRejectionDto } from '../services/les-api.service
     .miso-table tbody tr:hover { background: var(--miso-surface); }
     .action-cell { display: flex; gap: 0.5rem; align-items: center; flex-wrap: wrap; }
     .btn-sm { font-size: 0.8125rem; padding: 0.25rem 0.75rem; }
+    .more { display: flex; justify-content: center; margin-top: 1rem; }
   `],
 })
 export class WithdrawRejectionsComponent implements OnInit {
   list: WithdrawRejectionDto[] = [];
+  nextCursor: string | null = null;
   loading = true;
   error: string | null = null;
   correcting: string | null = null;
@@ -115,11 +124,12 @@ export class WithdrawRejectionsComponent implements OnInit {
     this.loadList();
   }
 
-  private loadList(): void {
+  loadList(cursor: string | null = null): void {
     this.loading = true;
-    this.api.listWithdrawRejections().subscribe({
-      next: (data) => {
-        this.list = data;
+    this.api.listWithdrawRejections(cursor).subscribe({
+      next: (page) => {
+        this.list = cursor ? [...this.list, ...page.items] : page.items;
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
@@ -2,7 +2,7 @@ import { Component, OnDestroy, OnInit, ChangeDetectorRef } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { ActivatedRoute, RouterLink } from '@angular/router';
 import { interval, Subscription, Observable } from 'rxjs';
-import { LesApiService, LMREnrollment, WithdrawEligibility } from '../services/les-api.service';
+import { EnrollmentDetail, LesApiService, LMREnrollment, WithdrawEligibility } from '../services/les-api.service';
 
 @Component({
   standalone: true,
@@ -61,14 +61,14 @@ import { LesApiService, LMREnrollment, WithdrawEligibility } from '../services/l
             @if (enrollment.status === 'APPROVED' && eligibility && !eligibility.canWithdraw) {
               <span class="action-note">Withdraw button is not shown when eligibility says you cannot withdraw (see message above).</span>
             }
-            @if (enrollment.status === 'APPROVED' && polling) {
-              <span class="status-pending-dot">Checking eligibility periodically.</span>
+            @if (enrollment.status === 'APPROVED' && watching) {
+              <span class="status-pending-dot">Eligibility updates live.</span>
             }
             @if (enrollment.status === 'WITHDRAWN_REQUESTED') {
               <div class="status-pending">
                 <span class="status-pending-text">Withdrawal requested. Waiting for MECT to respond…</span>
-                @if (polling) {
-                  <span class="status-pending-dot">Checking status automatically.</span>
+                @if (watching) {
+                  <span class="status-pending-dot">Status updates automatically.</span>
                 }
               </div>
             }
@@ -126,10 +126,10 @@ export class EnrollmentDetailComponent implements OnInit, OnDestroy {
   eligibility: WithdrawEligibility | null = null;
   loading = true;
   actionLoading = false;
-  polling = false;
+  watching = false;
   error: string | null = null;
   private lmrId = '';
-  private pollSub: Subscription | null = null;
+  private watchSub: Subscription | null = null;
 
   constructor(
     private route: ActivatedRoute,
@@ -143,96 +143,101 @@ export class EnrollmentDetailComponent implements OnInit, OnDestroy {
   }
 
   ngOnDestroy(): void {
-    this.stopPolling();
+    this.stopWatching();
   }
 
-  /** Statuses that need live enrollment + eligibility updates (polling). */
-  private static readonly POLL_STATUSES = ['APPROVED', 'WITHDRAWN_REQUESTED'] as const;
+  /** Statuses that need live enrollment + eligibility updates. */
+  private static readonly WATCH_STATUSES = ['APPROVED', 'WITHDRAWN_REQUESTED'] as const;
 
-  private shouldPoll(e: LMREnrollment): boolean {
-    return (EnrollmentDetailComponent.POLL_STATUSES as readonly string[]).includes(e.status);
+  private shouldWatch(e: LMREnrollment): boolean {
+    return (EnrollmentDetailComponent.WATCH_STATUSES as readonly string[]).includes(e.status);
   }
 
+  /** Statuses for which the withdrawal eligibility is shown. */
+  private static readonly ELIGIBILITY_STATUSES = ['APPROVED', 'WITHDRAWN', 'WITHDRAWN_REQUESTED', 'WITHDRAW_REJECTED'] as const;
+
   load(): void {
     this.loading = true;
-    this.api.getEnrollment(this.lmrId).subscribe({
-      next: (e) => {
-        this.enrollment = e;
+    this.api.getEnrollmentDetail(this.lmrId).subscribe({
+      next: (d) => {
         this.loading = false;
-        if (e.status === 'APPROVED' || e.status === 'WITHDRAWN' || e.status === 'WITHDRAWN_REQUESTED' || e.status === 'WITHDRAW_REJECTED') {
-          this.loadEligibility();
-        }
-        if (this.shouldPoll(e)) {
-          this.startPolling();
-        } else {
-          this.stopPolling();
+        this.applyDetail(d);
+        if (this.shouldWatch(d)) {
+          this.startWatching();
         }
       },
       error: (err) => {
         this.error = err?.message || 'Failed to load enrollment';
         this.loading = false;
-        this.stopPolling();
+        this.stopWatching();
       },
     });
   }
 
   /**
-   * Single polling loop: refreshes enrollment and (when relevant) eligibility every 2s.
-   * Runs while status is APPROVED or WITHDRAWN_REQUESTED; stops when status changes to a terminal state.
+   * Follows the enrollment over the server's event stream while status is APPROVED or WITHDRAWN_REQUESTED, and stops
+   * once it reaches a terminal state. The state is re-read whenever the stream (re)opens, and revalidated (ETags, so
+   * usually a 304) every 30s in case the change was handled by another LES instance. Falls back to polling every 2s
+   * if the server refuses the stream.
    */
-  private startPolling(): void {
-    this.stopPolling();
-    this.polling = true;
-    const POLL_MS = 2000;
-    this.pollSub = interval(POLL_MS).subscribe(() => this.tick());
+  private startWatching(): void {
+    if (this.watchSub) return;
+    this.watching = true;
+    const watch = new Subscription();
+    watch.add(this.api.streamEnrollments([this.lmrId]).subscribe({
+      next: (evt) => {
+        if (evt.type === 'open') {
+          this.tick();
+        } else if (evt.type === 'enrollment') {
+          this.applyEnrollment(evt.enrollment);
+        } else {
+          this.eligibility = evt.eligibility;
+          this.cdr.detectChanges();
+        }
+      },
+      error: () => watch.add(interval(2000).subscribe(() => this.tick())),
+    }));
+    watch.add(interval(30000).subscribe(() => this.tick()));
+    this.watchSub = watch;
   }
 
+  /** Re-reads enrollment and eligibility together: one request, one query on the server. */
   private tick(): void {
-    this.api.getEnrollment(this.lmrId).subscribe({
-      next: (e) => {
-        this.enrollment = e;
-        if (e.status === 'APPROVED' || e.status === 'WITHDRAWN' || e.status === 'WITHDRAWN_REQUESTED' || e.status === 'WITHDRAW_REJECTED') {
-          this.api.getWithdrawEligibility(this.lmrId).subscribe({
-            next: (el) => {
-              this.eligibility = el;
-              this.cdr.detectChanges();
-            },
-            error: () => {
-              this.eligibility = null;
-              this.cdr.detectChanges();
-            },
-          });
-        }
-        if (!this.shouldPoll(e)) {
-          this.stopPolling();
-        }
-        this.cdr.detectChanges();
-      },
+    this.api.getEnrollmentDetail(this.lmrId).subscribe({
+      next: (d) => this.applyDetail(d),
       error: () => {
-        this.stopPolling();
+        this.stopWatching();
       },
     });
   }
 
-  private stopPolling(): void {
-    if (this.pollSub) {
-      this.pollSub.unsubscribe();
-      this.pollSub = null;
+  private applyDetail(d: EnrollmentDetail): void {
+    this.eligibility = (EnrollmentDetailComponent.ELIGIBILITY_STATUSES as readonly string[]).includes(d.status)
+      ? {
+          lmrId: d.lmrId,
+          planningYear: d.planningYear,
+          canWithdraw: d.canWithdraw,
+          message: d.message,
+          updatedAt: d.eligibilityUpdatedAt ?? d.updatedAt,
+        }
+      : null;
+    this.applyEnrollment(d);
+  }
+
+  private applyEnrollment(e: LMREnrollment): void {
+    this.enrollment = e;
+    if (!this.shouldWatch(e)) {
+      this.stopWatching();
     }
-    this.polling = false;
+    this.cdr.detectChanges();
   }
 
-  loadEligibility(): void {
-    this.api.getWithdrawEligibility(this.lmrId).subscribe({
-      next: (el) => {
-        this.eligibility = el;
-        this.cdr.detectChanges();
-      },
-      error: () => {
-        this.eligibility = null;
-        this.cdr.detectChanges();
-      },
-    });
+  private stopWatching(): void {
+    if (this.watchSub) {
+      this.watchSub.unsubscribe();
+      this.watchSub = null;
+    }
+    this.watching = false;
   }
 
   submit(): void {
@@ -255,13 +260,13 @@ export class EnrollmentDetailComponent implements OnInit, OnDestroy {
         this.enrollment = e;
         this.actionLoading = false;
         this.cdr.detectChanges();
-        if (e.status === 'APPROVED' || e.status === 'WITHDRAWN' || e.status === 'WITHDRAWN_REQUESTED' || e.status === 'WITHDRAW_REJECTED') {
-          this.loadEligibility();
+        if ((EnrollmentDetailComponent.ELIGIBILITY_STATUSES as readonly string[]).includes(e.status)) {
+          this.tick();
         }
-        if (this.shouldPoll(e)) {
-          this.startPolling();
+        if (this.shouldWatch(e)) {
+          this.startWatching();
         } else {
-          this.stopPolling();
+          this.stopWatching();
         }
       },
       error: (err) => {
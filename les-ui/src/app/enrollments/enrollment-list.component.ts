@@ -1,11 +1,12 @@
 import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
+import { FormsModule } from '@angular/forms';
 import { RouterLink } from '@angular/router';
-import { LesApiService, LMREnrollment } from '../services/les-api.service';
+import { EnrollmentFilter, EnrollmentSummary, LesApiService } from '../services/les-api.service';
 
 @Component({
   standalone: true,
-  imports: [CommonModule, RouterLink],
+  imports: [CommonModule, FormsModule, RouterLink],
   template: `
     <div class="app-container">
       <div class="page-head">
@@ -13,15 +14,36 @@ import { LesApiService, LMREnrollment } from '../services/les-api.service';
         <a routerLink="/enrollments/new" class="btn btn-primary">New enrollment</a>
       </div>
 
+      <form class="filters" (ngSubmit)="applyFilter()">
+        <select name="status" [(ngModel)]="filter.status" aria-label="Status">
+          <option value="">All statuses</option>
+          @for (s of statuses; track s) {
+            <option [value]="s">{{ s }}</option>
+          }
+        </select>
+        <select name="resourceType" [(ngModel)]="filter.resourceType" aria-label="Resource type">
+          <option value="">All resource types</option>
+          <option value="LMR_DR">LMR_DR</option>
+          <option value="LMR_BTMG">LMR_BTMG</option>
+        </select>
+        <input name="planningYear" [(ngModel)]="filter.planningYear" placeholder="Planning year" />
+        <input name="participant" [(ngModel)]="filter.participant" placeholder="Participant" />
+        <button type="submit" class="btn btn-secondary">Filter</button>
+      </form>
+
       @if (error) {
         <div class="alert alert-error">{{ error }}</div>
       }
 
-      @if (loading) {
+      @if (loading && enrollments.length === 0) {
         <p>Loading enrollments…</p>
       } @else if (enrollments.length === 0) {
         <div class="card">
-          <p class="muted">No enrollments yet. <a routerLink="/enrollments/new">Create one</a>.</p>
+          @if (filtered) {
+            <p class="muted">No enrollments match the filter.</p>
+          } @else {
+            <p class="muted">No enrollments yet. <a routerLink="/enrollments/new">Create one</a>.</p>
+          }
         </div>
       } @else {
         <div class="table-wrap">
@@ -52,6 +74,13 @@ import { LesApiService, LMREnrollment } from '../services/les-api.service';
             </tbody>
           </table>
         </div>
+        @if (nextCursor) {
+          <div class="more">
+            <button class="btn btn-secondary" (click)="loadMore()" [disabled]="loading">
+              {{ loading ? 'Loading…' : 'Load more' }}
+            </button>
+          </div>
+        }
       }
     </div>
   `,
@@ -65,6 +94,8 @@ import { LesApiService, LMREnrollment } from '../services/les-api.service';
       gap: 1rem;
     }
     .page-head h1 { margin: 0; }
+    .filters { display: flex; gap: 0.5rem; flex-wrap: wrap; margin-bottom: 1rem; }
+    .more { display: flex; justify-content: center; margin-top: 1rem; }
     .muted { color: var(--miso-text-muted); margin: 0; }
     .table-wrap { overflow-x: auto; }
     .miso-table {
@@ -90,16 +121,37 @@ import { LesApiService, LMREnrollment } from '../services/les-api.service';
   `],
 })
 export class EnrollmentListComponent implements OnInit {
-  enrollments: LMREnrollment[] = [];
+  readonly statuses = ['DRAFT', 'SUBMITTED', 'APPROVED', 'WITHDRAWN_REQUESTED', 'WITHDRAWN', 'WITHDRAW_REJECTED'];
+  enrollments: EnrollmentSummary[] = [];
+  filter: EnrollmentFilter = { status: '', resourceType: '', planningYear: '', participant: '' };
+  filtered = false;
+  nextCursor: string | null = null;
   loading = true;
   error: string | null = null;
 
   constructor(private api: LesApiService) {}
 
   ngOnInit(): void {
-    this.api.listEnrollments().subscribe({
-      next: (list) => {
-        this.enrollments = list;
+    this.load(null);
+  }
+
+  applyFilter(): void {
+    this.enrollments = [];
+    this.filtered = Object.values(this.filter).some((v) => !!v);
+    this.load(null);
+  }
+
+  loadMore(): void {
+    this.load(this.nextCursor);
+  }
+
+  private load(cursor: string | null): void {
+    this.loading = true;
+    this.error = null;
+    this.api.listEnrollments(this.filter, cursor).subscribe({
+      next: (page) => {
+        this.enrollments = cursor ? [...this.enrollments, ...page.items] : page.items;
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
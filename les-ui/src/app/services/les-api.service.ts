@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpErrorResponse, HttpHeaders, HttpParams } from '@angular/common/http';
+import { Observable, catchError, map, of, throwError } from 'rxjs';
 import { environment } from '../../environments/environment';
 
 export interface LMREnrollment {
@@ -17,6 +17,31 @@ export interface LMREnrollment {
   withdrawRejectedAt?: string | null;
 }
 
+/** Row of the enrollment list (GET /api/lmrs); the full enrollment comes from GET /api/lmrs/{id}. */
+export interface EnrollmentSummary {
+  id: number;
+  lmrId: string;
+  lmrName: string;
+  marketParticipantName: string;
+  resourceType: string;
+  planningYear: string;
+  status: string;
+  updatedAt: string;
+}
+
+/** One page of a cursor-paginated list; pass nextCursor back as cursor, null on the last page. */
+export interface KeysetPage<T> {
+  items: T[];
+  nextCursor: string | null;
+}
+
+export interface EnrollmentFilter {
+  status?: string;
+  planningYear?: string;
+  resourceType?: string;
+  participant?: string;
+}
+
 export interface CreateEnrollmentRequest {
   lmrId: string;
   marketParticipantName: string;
@@ -33,6 +58,24 @@ export interface WithdrawEligibility {
   updatedAt: string;
 }
 
+/**
+ * Enrollment with its withdrawal eligibility (GET /api/lmrs/{id}/detail), read in one query. Until MECT sends
+ * eligibility, canWithdraw is false and the eligibility fields are null.
+ */
+export interface EnrollmentDetail extends LMREnrollment {
+  canWithdraw: boolean;
+  message: string;
+  blockingFlags: string[];
+  eligibilityVersion: number | null;
+  eligibilityUpdatedAt: string | null;
+}
+
+/** Event of GET /api/stream/enrollments; 'open' again after every reconnect, when the state should be re-read. */
+export type EnrollmentStreamEvent =
+  | { type: 'open' }
+  | { type: 'enrollment'; enrollment: LMREnrollment }
+  | { type: 'eligibility'; eligibility: WithdrawEligibility };
+
 export interface WithdrawRejectionDto {
   lmrId: string;
   planningYear: string;
@@ -46,15 +89,26 @@ export interface WithdrawRejectionDto {
 @Injectable({ providedIn: 'root' })
 export class LesApiService {
   private base = environment.apiUrl;
+  /** Last body and ETag of each polled resource, replayed when the server answers 304. */
+  private validated = new Map<string, { etag: string; body: unknown }>();
 
   constructor(private http: HttpClient) {}
 
-  listEnrollments(): Observable<LMREnrollment[]> {
-    return this.http.get<LMREnrollment[]>(`${this.base}/lmrs`);
+  listEnrollments(filter: EnrollmentFilter = {}, cursor: string | null = null, limit = 50): Observable<KeysetPage<EnrollmentSummary>> {
+    let params = new HttpParams().set('limit', limit);
+    for (const [key, value] of Object.entries(filter)) {
+      if (value) params = params.set(key, value);
+    }
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<KeysetPage<EnrollmentSummary>>(`${this.base}/lmrs`, { params });
   }
 
   getEnrollment(lmrId: string): Observable<LMREnrollment> {
-    return this.http.get<LMREnrollment>(`${this.base}/lmrs/${encodeURIComponent(lmrId)}`);
+    return this.conditionalGet<LMREnrollment>(`${this.base}/lmrs/${encodeURIComponent(lmrId)}`);
+  }
+
+  getEnrollmentDetail(lmrId: string): Observable<EnrollmentDetail> {
+    return this.conditionalGet<EnrollmentDetail>(`${this.base}/lmrs/${encodeURIComponent(lmrId)}/detail`);
   }
 
   createEnrollment(body: CreateEnrollmentRequest): Observable<LMREnrollment> {
@@ -74,11 +128,35 @@ export class LesApiService {
   }
 
   getWithdrawEligibility(lmrId: string): Observable<WithdrawEligibility> {
-    return this.http.get<WithdrawEligibility>(`${this.base}/lmrs/${encodeURIComponent(lmrId)}/withdraw-eligibility`);
+    return this.conditionalGet<WithdrawEligibility>(`${this.base}/lmrs/${encodeURIComponent(lmrId)}/withdraw-eligibility`);
   }
 
-  listWithdrawRejections(): Observable<WithdrawRejectionDto[]> {
-    return this.http.get<WithdrawRejectionDto[]>(`${this.base}/admin/withdraw-rejections`);
+  /**
+   * Live changes to the given LMRs over Server-Sent Events. EventSource reconnects by itself after a network
+   * error; the observable only errors when the server refuses the stream. Unsubscribing closes it.
+   */
+  streamEnrollments(lmrIds: string[]): Observable<EnrollmentStreamEvent> {
+    const params = new HttpParams({ fromObject: { lmrId: lmrIds } });
+    return new Observable<EnrollmentStreamEvent>((subscriber) => {
+      const source = new EventSource(`${this.base}/stream/enrollments?${params.toString()}`);
+      source.onopen = () => subscriber.next({ type: 'open' });
+      source.addEventListener('enrollment', (e) =>
+        subscriber.next({ type: 'enrollment', enrollment: JSON.parse((e as MessageEvent).data) }));
+      source.addEventListener('eligibility', (e) =>
+        subscriber.next({ type: 'eligibility', eligibility: JSON.parse((e as MessageEvent).data) }));
+      source.onerror = () => {
+        if (source.readyState === EventSource.CLOSED) {
+          subscriber.error(new Error('Enrollment stream closed'));
+        }
+      };
+      return () => source.close();
+    });
+  }
+
+  listWithdrawRejections(cursor: string | null = null, limit = 50): Observable<KeysetPage<WithdrawRejectionDto>> {
+    let params = new HttpParams().set('limit', limit);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<KeysetPage<WithdrawRejectionDto>>(`${this.base}/admin/withdraw-rejections`, { params });
   }
 
   /**
@@ -90,4 +168,32 @@ export class LesApiService {
       {},
     );
   }
+
+  /**
+   * GET with If-None-Match from the previous response, so polling an unchanged resource costs a 304 without a body.
+   * HttpClient reports 304 as an error; it is answered with the body kept from the last 200.
+   */
+  private conditionalGet<T>(url: string): Observable<T> {
+    const cached = this.validated.get(url);
+    const headers = cached ? new HttpHeaders({ 'If-None-Match': cached.etag }) : undefined;
+    return this.http.get<T>(url, { headers, observe: 'response' }).pipe(
+      map((res) => {
+        const etag = res.headers.get('ETag');
+        if (etag) {
+          this.validated.set(url, { etag, body: res.body });
+        } else {
+          this.validated.delete(url);
+        }
+        return res.body as T;
+      }),
+      catchError((err: HttpErrorResponse) => {
+        const current = this.validated.get(url);
+        if (err.status === 304 && current) {
+          return of(current.body as T);
+        }
+        this.validated.delete(url);
+        return throwError(() => err);
+      }),
+    );
+  }
 }
@@ -0,0 +1,96 @@
+package org.misoenergy.mect.deadletter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.misoenergy.mect.events.EventCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parks records that cannot be processed in {@code dead_letter} and lists them.
+ * <p>
+ * {@link #onDeadLetter} is the handler of every {@code <topic>-dlt} topic (see {@code KafkaConsumerConfig}):
+ * records arrive there once the retry topics are exhausted, or straight away for failures that are not retried.
+ * <p>
+ * Replays are {@link DeadLetterReplayService}'s.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterService.class);
+    /** Suffixes of the retry and dead-letter topics derived from a main topic. */
+    private static final Pattern DERIVED_SUFFIX = Pattern.compile("(-retry(-\\d+)?|-dlt)$");
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final MeterRegistry meterRegistry;
+
+    public DeadLetterService(DeadLetterRepository deadLetterRepository, MeterRegistry meterRegistry) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** DLT handler: stores the record with the failure the retry chain recorded in its headers. */
+    public void onDeadLetter(ConsumerRecord<String, byte[]> record) {
+        String originalTopic = firstString(record, KafkaHeaders.ORIGINAL_TOPIC);
+        String exceptionClass = firstString(record, KafkaHeaders.EXCEPTION_CAUSE_FQCN);
+        DeadLetter letter = newLetter(record, originalTopic != null ? originalTopic : record.topic(),
+                exceptionClass != null ? exceptionClass : firstString(record, KafkaHeaders.EXCEPTION_FQCN),
+                firstString(record, KafkaHeaders.EXCEPTION_MESSAGE));
+        Header partition = first(record, KafkaHeaders.ORIGINAL_PARTITION);
+        Header offset = first(record, KafkaHeaders.ORIGINAL_OFFSET);
+        letter.setPartition(partition != null ? ByteBuffer.wrap(partition.value()).getInt() : null);
+        letter.setOffset(offset != null ? ByteBuffer.wrap(offset.value()).getLong() : null);
+        save(letter);
+    }
+
+    public List<DeadLetter> list(String topic, int limit) {
+        PageRequest page = PageRequest.ofSize(Math.max(1, Math.min(limit, 1000)));
+        return topic == null || topic.isBlank()
+                ? deadLetterRepository.findAllByOrderByIdDesc(page)
+                : deadLetterRepository.findByTopicOrderByIdDesc(topic, page);
+    }
+
+    private static DeadLetter newLetter(ConsumerRecord<String, byte[]> record, String topic,
+                                        String exceptionClass, String exceptionMessage) {
+        DeadLetter letter = new DeadLetter();
+        letter.setTopic(mainTopic(topic));
+        letter.setMessageKey(record.key());
+        String encoding = firstString(record, EventCodec.HEADER);
+        letter.setEncoding(encoding != null ? encoding : EventCodec.JSON);
+        letter.setPayload(record.value());
+        letter.setExceptionClass(exceptionClass);
+        letter.setExceptionMessage(exceptionMessage);
+        return letter;
+    }
+
+    private void save(DeadLetter letter) {
+        deadLetterRepository.save(letter);
+        meterRegistry.counter("kafka.dead.letters", "topic", letter.getTopic()).increment();
+        log.warn("Dead letter parked topic={} partition={} offset={} key={}: {}", letter.getTopic(),
+                letter.getPartition(), letter.getOffset(), letter.getMessageKey(), letter.getExceptionMessage());
+    }
+
+    static String mainTopic(String topic) {
+        return DERIVED_SUFFIX.matcher(topic).replaceFirst("");
+    }
+
+    /** First occurrence: with appended headers that is the failure on the main topic. */
+    private static Header first(ConsumerRecord<?, ?> record, String name) {
+        for (Header header : record.headers().headers(name)) return header;
+        return null;
+    }
+
+    private static String firstString(ConsumerRecord<?, ?> record, String name) {
+        Header header = first(record, name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
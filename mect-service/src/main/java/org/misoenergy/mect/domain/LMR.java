@@ -35,6 +35,10 @@ public class LMR {
     @Column(name = "flag")
     private Set<BlockingFlag> blockingFlags = new HashSet<>();
 
+    /** Version of the last published eligibility; only advanced by {@code LMRRepository#nextEligibilityVersion}. */
+    @Column(name = "eligibility_version", nullable = false, insertable = false, updatable = false)
+    private long eligibilityVersion;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -65,6 +69,7 @@ public class LMR {
     public void setSeasonalCapacity(Map<String, Double> seasonalCapacity) { this.seasonalCapacity = seasonalCapacity != null ? seasonalCapacity : new HashMap<>(); }
     public Set<BlockingFlag> getBlockingFlags() { return blockingFlags; }
     public void setBlockingFlags(Set<BlockingFlag> blockingFlags) { this.blockingFlags = blockingFlags != null ? blockingFlags : new HashSet<>(); }
+    public long getEligibilityVersion() { return eligibilityVersion; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
@@ -0,0 +1,217 @@
+package org.misoenergy.mect.events;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Binary layout of one event type (docs/event-encoding.md).
+ * <p>
+ * One format-version byte, then {@code (tag, value)} pairs where {@code tag = fieldNumber << 3 | wireType}.
+ * Wire type 0 is a varint (booleans, zigzag int64, instants as zigzag epoch microseconds), wire type 2 is
+ * length-prefixed UTF-8 (strings; a list repeats the tag once per element). Null fields are not written.
+ * Readers skip field numbers they do not know, which is what lets a writer add fields without breaking them.
+ */
+final class BinarySchema<T> {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int VARINT = 0;
+    private static final int LENGTH_DELIMITED = 2;
+
+    private interface Field<T> {
+        void write(T event, Output out);
+        void read(T event, ByteBuffer in);
+        int wireType();
+    }
+
+    private final Supplier<T> factory;
+    private final List<Field<T>> fields = new ArrayList<>();
+    private final Map<Integer, Field<T>> byNumber = new HashMap<>();
+
+    BinarySchema(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    BinarySchema<T> string(int number, Function<T, String> getter, BiConsumer<T, String> setter) {
+        return add(number, LENGTH_DELIMITED, (e, out) -> {
+            String v = getter.apply(e);
+            if (v != null) out.string(number, v);
+        }, (e, in) -> setter.accept(e, readString(in)));
+    }
+
+    BinarySchema<T> bool(int number, Function<T, Boolean> getter, BiConsumer<T, Boolean> setter) {
+        return add(number, VARINT, (e, out) -> {
+            Boolean v = getter.apply(e);
+            if (v != null) out.varint(number, v ? 1 : 0);
+        }, (e, in) -> setter.accept(e, readVarint(in) != 0));
+    }
+
+    BinarySchema<T> int64(int number, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+        return add(number, VARINT, (e, out) -> {
+            Long v = getter.apply(e);
+            if (v != null) out.varint(number, zigzag(v));
+        }, (e, in) -> setter.accept(e, unzigzag(readVarint(in))));
+    }
+
+    /** Microsecond precision, the same as the Postgres timestamps these values come from. */
+    BinarySchema<T> instant(int number, Function<T, Instant> getter, BiConsumer<T, Instant> setter) {
+        return add(number, VARINT, (e, out) -> {
+            Instant v = getter.apply(e);
+            if (v != null) out.varint(number, zigzag(Math.addExact(Math.multiplyExact(v.getEpochSecond(), 1_000_000L), v.getNano() / 1_000)));
+        }, (e, in) -> {
+            long micros = unzigzag(readVarint(in));
+            setter.accept(e, Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L));
+        });
+    }
+
+    /** An empty list is written like a null one and reads back as null. */
+    BinarySchema<T> strings(int number, Function<T, List<String>> getter, BiConsumer<T, List<String>> setter) {
+        return add(number, LENGTH_DELIMITED, (e, out) -> {
+            List<String> v = getter.apply(e);
+            if (v != null) v.forEach(s -> out.string(number, s));
+        }, (e, in) -> {
+            List<String> v = getter.apply(e);
+            if (v == null) {
+                v = new ArrayList<>();
+                setter.accept(e, v);
+            }
+            v.add(readString(in));
+        });
+    }
+
+    byte[] encode(T event) {
+        Output out = new Output();
+        out.write(FORMAT_VERSION);
+        for (Field<T> field : fields) field.write(event, out);
+        return out.toByteArray();
+    }
+
+    /** Throws {@link IllegalArgumentException} when the bytes are not an event of this schema, or are truncated. */
+    T decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            int version = in.get() & 0xff;
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported binary event format version " + version);
+            }
+            T event = factory.get();
+            while (in.hasRemaining()) {
+                long tag = readVarint(in);
+                int number = (int) (tag >>> 3);
+                int wireType = (int) (tag & 7);
+                Field<T> field = byNumber.get(number);
+                if (field == null) {
+                    skip(in, wireType);
+                } else if (field.wireType() != wireType) {
+                    throw new IllegalArgumentException("Field " + number + " has wire type " + wireType + ", expected " + field.wireType());
+                } else {
+                    field.read(event, in);
+                }
+            }
+            return event;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Truncated binary event (" + bytes.length + " bytes)", ex);
+        }
+    }
+
+    private BinarySchema<T> add(int number, int wireType, BiConsumer<T, Output> writer, BiConsumer<T, ByteBuffer> reader) {
+        if (byNumber.containsKey(number)) throw new IllegalStateException("Field number " + number + " used twice");
+        Field<T> field = new Field<>() {
+            @Override public void write(T event, Output out) { writer.accept(event, out); }
+            @Override public void read(T event, ByteBuffer in) { reader.accept(event, in); }
+            @Override public int wireType() { return wireType; }
+        };
+        fields.add(field);
+        byNumber.put(number, field);
+        return this;
+    }
+
+    private static void skip(ByteBuffer in, int wireType) {
+        switch (wireType) {
+            case VARINT -> readVarint(in);
+            case LENGTH_DELIMITED -> {
+                int length = (int) readVarint(in);
+                in.position(in.position() + length);
+            }
+            default -> throw new IllegalArgumentException("Unknown wire type " + wireType);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarint(in);
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    /** Growable buffer; not a ByteArrayOutputStream, whose writes are synchronized. */
+    private static final class Output {
+
+        private byte[] buf = new byte[128];
+        private int count;
+
+        void varint(int number, long value) {
+            rawVarint((long) number << 3 | VARINT);
+            rawVarint(value);
+        }
+
+        void string(int number, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            rawVarint((long) number << 3 | LENGTH_DELIMITED);
+            rawVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void rawVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buf[count++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buf[count++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
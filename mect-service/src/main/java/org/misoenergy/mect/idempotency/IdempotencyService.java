@@ -0,0 +1,125 @@
+package org.misoenergy.mect.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event-id idempotency for the Kafka consumers.
+ * <p>
+ * Each check is a single {@link ProcessedEventRepository#claim} (INSERT ... ON CONFLICT DO NOTHING) that both
+ * records the event and says whether it was new, so a concurrent redelivery no longer fails on the unique index.
+ * A bounded LRU of ids from committed transactions, warmed at startup, answers recent duplicates without a
+ * round trip.
+ * <p>
+ * {@code occurred_at} is part of the unique key (it is the partition key), so it must be the same on every
+ * delivery of an event. An event without {@code occurredAt} is keyed by the timestamp of the Kafka record it came
+ * in, which a redelivery carries unchanged; on a retry topic that is the original record's timestamp.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int recentCapacity;
+    private final Map<String, Boolean> recent;
+    private final Counter recentHit;
+    private final Counter claimedNew;
+    private final Counter claimedDuplicate;
+
+    public IdempotencyService(ProcessedEventRepository processedEventRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${mect.idempotency.recent-capacity:10000}") int recentCapacity,
+                              MeterRegistry meterRegistry) {
+        this.processedEventRepository = processedEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.recentCapacity = Math.max(1, recentCapacity);
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(this.recentCapacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > IdempotencyService.this.recentCapacity;
+            }
+        });
+        this.recentHit = meterRegistry.counter("idempotency.checks", "result", "recent_hit");
+        this.claimedNew = meterRegistry.counter("idempotency.checks", "result", "db_new");
+        this.claimedDuplicate = meterRegistry.counter("idempotency.checks", "result", "db_duplicate");
+        Gauge.builder("idempotency.recent.size", recent, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Record the event as processed in the caller's transaction.
+     * Returns false when it was already processed (the caller should skip the message). A null id cannot be
+     * deduplicated and is always treated as new; a missing {@code occurredAt} falls back to the timestamp of
+     * {@code record}, the Kafka record the event was decoded from.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean markProcessed(String eventId, Instant occurredAt, ConsumerRecord<?, ?> record) {
+        if (eventId == null) return true;
+        if (recent.containsKey(eventId)) {
+            recentHit.increment();
+            return false;
+        }
+        if (processedEventRepository.claim(eventId, partitionKey(eventId, occurredAt, record)) == 0) {
+            claimedDuplicate.increment();
+            return false;
+        }
+        claimedNew.increment();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.put(eventId, Boolean.TRUE);
+            }
+        });
+        return true;
+    }
+
+    static Instant partitionKey(String eventId, Instant occurredAt, ConsumerRecord<?, ?> record) {
+        if (occurredAt != null) return occurredAt;
+        // The retry-topic hops republish the record; the first original timestamp is the one on the main topic
+        Iterator<Header> original = record.headers().headers(KafkaHeaders.ORIGINAL_TIMESTAMP).iterator();
+        long recordTimestamp = original.hasNext() ? ByteBuffer.wrap(original.next().value()).getLong() : record.timestamp();
+        if (recordTimestamp < 0) {
+            throw new IllegalArgumentException("Event " + eventId + " has neither occurredAt nor a record timestamp");
+        }
+        return Instant.ofEpochMilli(recordTimestamp);
+    }
+
+    /** Load the most recently processed ids into the LRU (served by idx_processed_event_processed_at). */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        try {
+            List<String> latest = new ArrayList<>(jdbcTemplate.queryForList(
+                    "SELECT event_id FROM processed_event ORDER BY processed_at DESC LIMIT ?", String.class, recentCapacity));
+            Collections.reverse(latest);
+            latest.forEach(id -> recent.put(id, Boolean.TRUE));
+            log.info("Idempotency cache warmed with {} recent event ids", latest.size());
+        } catch (Exception ex) {
+            log.warn("Idempotency cache warm-up failed: {}", ex.getMessage());
+        }
+    }
+}
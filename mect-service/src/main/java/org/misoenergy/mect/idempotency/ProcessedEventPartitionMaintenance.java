@@ -0,0 +1,156 @@
+package org.misoenergy.mect.idempotency;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code processed_event} ahead of time and drops the ones Kafka can no longer
+ * redeliver from.
+ * <p>
+ * Partitions are keyed by the event's {@code occurred_at}, but Kafka expires a record by its own timestamp, which
+ * can be much later when the event waited in the producer's outbox. A partition is therefore dropped only once both
+ * its month and its newest {@code processed_at} lie further back than the retention: a record was appended before
+ * it was processed, so nothing in the partition can still be redelivered. With {@code retention=topic} the
+ * retention is the longest {@code retention.ms} of the consumed topics plus {@code retention-margin}; an unlimited
+ * retention on any of them disables dropping. Compacted topics are not counted: what they retain is the latest
+ * record per key, and re-applying that is harmless for the state it carries.
+ */
+@Component
+public class ProcessedEventPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessedEventPartitionMaintenance.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("processed_event_(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaAdmin kafkaAdmin;
+    private final String retention;
+    private final Duration retentionMargin;
+    private final List<String> topics;
+    private final int monthsAhead;
+
+    public ProcessedEventPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                              TransactionTemplate transactionTemplate,
+                                              KafkaAdmin kafkaAdmin,
+                                              @Value("${mect.idempotency.retention:topic}") String retention,
+                                              @Value("${mect.idempotency.retention-margin:P1D}") Duration retentionMargin,
+                                              @Value("${mect.idempotency.topics:}") List<String> topics,
+                                              @Value("${mect.idempotency.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaAdmin = kafkaAdmin;
+        this.retention = retention.trim();
+        this.retentionMargin = retentionMargin;
+        this.topics = topics;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${mect.idempotency.partitions.maintenance-cron:0 20 * * * *}")
+    public void maintain() {
+        Optional<Duration> keep;
+        try {
+            keep = resolveRetention();
+        } catch (Exception ex) {
+            log.warn("processed_event retention unknown, nothing dropped this run: {}", ex.getMessage());
+            keep = Optional.empty();
+        }
+        Optional<Duration> retain = keep;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('processed_event_partition_maintenance'))", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) return;
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                createAhead(current);
+                retain.ifPresent(this::dropExpired);
+            });
+        } catch (Exception ex) {
+            log.warn("processed_event partition maintenance failed: {}", ex.getMessage());
+        }
+    }
+
+    /** Empty when nothing may be dropped. */
+    private Optional<Duration> resolveRetention() throws Exception {
+        if ("never".equalsIgnoreCase(retention)) return Optional.empty();
+        if (!"topic".equalsIgnoreCase(retention)) return Optional.of(Duration.parse(retention));
+        if (topics.isEmpty()) return Optional.empty();
+        List<ConfigResource> resources = topics.stream()
+                .map(t -> new ConfigResource(ConfigResource.Type.TOPIC, t.trim()))
+                .toList();
+        long longestMs = 0;
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            Map<ConfigResource, Config> configs = admin.describeConfigs(resources).all().get(10, TimeUnit.SECONDS);
+            for (Config config : configs.values()) {
+                String policy = config.get(TopicConfig.CLEANUP_POLICY_CONFIG).value();
+                if (policy.contains(TopicConfig.CLEANUP_POLICY_COMPACT)) continue;
+                long ms = Long.parseLong(config.get(TopicConfig.RETENTION_MS_CONFIG).value());
+                if (ms < 0) return Optional.empty();
+                longestMs = Math.max(longestMs, ms);
+            }
+        }
+        return Optional.of(Duration.ofMillis(longestMs).plus(retentionMargin));
+    }
+
+    private void createAhead(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS processed_event_" + month.format(SUFFIX)
+                    + " PARTITION OF processed_event FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    private void dropExpired(Duration retain) {
+        LocalDateTime cutoff = LocalDateTime.now(ZoneOffset.UTC).minus(retain);
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'processed_event'::regclass
+                """, String.class);
+        for (String partition : partitions) {
+            Matcher m = PARTITION_NAME.matcher(partition);
+            if (!m.matches()) continue;
+            LocalDateTime end = YearMonth.parse(m.group(1), SUFFIX).plusMonths(1).atDay(1).atStartOfDay();
+            if (!end.isBefore(cutoff)) continue;
+            // processed_at is written with localtimestamp, so it is compared in the database's clock
+            Boolean processedWithinRetention = jdbcTemplate.queryForObject(
+                    "SELECT max(processed_at) >= localtimestamp - make_interval(secs => ?) FROM " + partition,
+                    Boolean.class, retain.toSeconds());
+            if (Boolean.TRUE.equals(processedWithinRetention)) {
+                log.debug("processed_event partition {} kept: events processed within retention {}", partition, retain);
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE processed_event DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("processed_event partition {} dropped (retention {})", partition, retain);
+        }
+    }
+}
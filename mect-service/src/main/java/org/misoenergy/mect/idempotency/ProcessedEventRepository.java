@@ -1,8 +1,25 @@
 package org.misoenergy.mect.idempotency;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
 
 public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
 
-    boolean existsByEventId(String eventId);
+    /**
+     * Record the event in one statement; returns 1 when it is new and 0 when it was already processed.
+     * Concurrent redeliveries collide on {@code (event_id, occurred_at)} and are absorbed by ON CONFLICT instead
+     * of failing the transaction; the NOT EXISTS also catches the same id stored under another occurred_at.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO processed_event (event_id, occurred_at, processed_at)
+            SELECT :eventId, :occurredAt, localtimestamp
+            WHERE NOT EXISTS (SELECT 1 FROM processed_event WHERE event_id = :eventId)
+            ON CONFLICT (event_id, occurred_at) DO NOTHING
+            """, nativeQuery = true)
+    int claim(@Param("eventId") String eventId, @Param("occurredAt") Instant occurredAt);
 }
@@ -1,45 +1,52 @@
 package org.misoenergy.mect.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.misoenergy.mect.events.EventCodec;
 import org.misoenergy.mect.events.LmrApprovedEvent;
 import org.misoenergy.mect.events.LmrWithdrawRequestedEvent;
-import org.misoenergy.mect.idempotency.ProcessedEvent;
-import org.misoenergy.mect.idempotency.ProcessedEventRepository;
+import org.misoenergy.mect.idempotency.IdempotencyService;
 import org.misoenergy.mect.service.LMRService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+
 @Component
 public class MectKafkaConsumers {
 
     private static final Logger log = LoggerFactory.getLogger(MectKafkaConsumers.class);
 
-    private final ObjectMapper objectMapper;
-    private final ProcessedEventRepository processedEventRepository;
+    private final EventCodec eventCodec;
+    private final IdempotencyService idempotencyService;
     private final LMRService lmrService;
+    private final EventLatency eventLatency;
+
+    @Value("${mect.kafka.topics.approved}")
+    private String topicApproved;
+    @Value("${mect.kafka.topics.withdraw-requested}")
+    private String topicWithdrawRequested;
 
-    public MectKafkaConsumers(ObjectMapper objectMapper,
-                              ProcessedEventRepository processedEventRepository,
-                              LMRService lmrService) {
-        this.objectMapper = objectMapper;
-        this.processedEventRepository = processedEventRepository;
+    public MectKafkaConsumers(EventCodec eventCodec,
+                              IdempotencyService idempotencyService,
+                              LMRService lmrService,
+                              EventLatency eventLatency) {
+        this.eventCodec = eventCodec;
+        this.idempotencyService = idempotencyService;
         this.lmrService = lmrService;
+        this.eventLatency = eventLatency;
     }
 
     @KafkaListener(topics = "${mect.kafka.topics.approved}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
-    public void onLmrApproved(String message) {
+    public void onLmrApproved(ConsumerRecord<String, byte[]> message) {
         try {
-            LmrApprovedEvent evt = objectMapper.readValue(message, LmrApprovedEvent.class);
-            if (processedEventRepository.existsByEventId(evt.getEventId())) return;
-            ProcessedEvent pe = new ProcessedEvent();
-            pe.setEventId(evt.getEventId());
-            processedEventRepository.save(pe);
-
-            lmrService.onApproved(evt.getEventId(), evt);
+            LmrApprovedEvent evt = eventCodec.decode(message, LmrApprovedEvent.class);
+            if (approved(evt, message)) eventLatency.record(topicApproved, evt.getOccurredAt());
         } catch (Exception e) {
             log.error("Approved consumer error: {}", e.getMessage());
             throw new RuntimeException(e);
@@ -48,18 +55,43 @@ public class MectKafkaConsumers {
 
     @KafkaListener(topics = "${mect.kafka.topics.withdraw-requested}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
-    public void onWithdrawRequested(String message) {
+    public void onWithdrawRequested(ConsumerRecord<String, byte[]> message) {
         try {
-            LmrWithdrawRequestedEvent evt = objectMapper.readValue(message, LmrWithdrawRequestedEvent.class);
-            if (processedEventRepository.existsByEventId(evt.getEventId())) return;
-            ProcessedEvent pe = new ProcessedEvent();
-            pe.setEventId(evt.getEventId());
-            processedEventRepository.save(pe);
-
-            lmrService.onWithdrawRequested(evt.getEventId(), evt);
+            LmrWithdrawRequestedEvent evt = eventCodec.decode(message, LmrWithdrawRequestedEvent.class);
+            if (withdrawRequested(evt, message)) eventLatency.record(topicWithdrawRequested, evt.getOccurredAt());
         } catch (Exception e) {
             log.error("Withdraw requested consumer error: {}", e.getMessage());
             throw new RuntimeException(e);
         }
     }
+
+    private boolean approved(LmrApprovedEvent evt, ConsumerRecord<String, byte[]> message) {
+        if (!idempotencyService.markProcessed(evt.getEventId(), evt.getOccurredAt(), message)) return false;
+        lmrService.onApproved(evt.getEventId(), evt);
+        return true;
+    }
+
+    private boolean withdrawRequested(LmrWithdrawRequestedEvent evt, ConsumerRecord<String, byte[]> message) {
+        if (!idempotencyService.markProcessed(evt.getEventId(), evt.getOccurredAt(), message)) return false;
+        lmrService.onWithdrawRequested(evt.getEventId(), evt);
+        return true;
+    }
+
+    /**
+     * Process a dead letter of one of these topics again, in the caller's transaction, the way its listener does,
+     * but without recording latency.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replay(ConsumerRecord<String, byte[]> message) throws IOException {
+        String topic = message.topic();
+        if (topic.equals(topicApproved)) {
+            LmrApprovedEvent evt = eventCodec.decode(message, LmrApprovedEvent.class);
+            approved(evt, message);
+        } else if (topic.equals(topicWithdrawRequested)) {
+            LmrWithdrawRequestedEvent evt = eventCodec.decode(message, LmrWithdrawRequestedEvent.class);
+            withdrawRequested(evt, message);
+        } else {
+            throw new IllegalArgumentException("MECT does not consume topic " + topic);
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package org.misoenergy.mect.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox backlog gauges, refreshed from the database on a fixed delay rather than on every scrape:
+ * {@code outbox.unpublished{topic}} and {@code outbox.unpublished.oldest.age} (the oldest unpublished row).
+ * <p>
+ * In {@code relay-mode=cdc} rows are never marked published, so those two are not meaningful; the relay backlog
+ * is reported as {@code outbox.cdc.lag} instead (WAL bytes between the current position and the slot's
+ * confirmed position).
+ */
+@Component
+public class OutboxBacklogMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxBacklogMetrics.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean cdc;
+    private final String slotName;
+    private final Map<String, AtomicLong> unpublishedByTopic = new ConcurrentHashMap<>();
+    private final AtomicLong oldestAgeMs = new AtomicLong();
+    private final AtomicLong cdcLagBytes = new AtomicLong();
+
+    public OutboxBacklogMetrics(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${mect.outbox.relay-mode:poll}") String relayMode,
+                                @Value("${mect.outbox.cdc.slot-name:mect_outbox_relay}") String slotName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.cdc = "cdc".equalsIgnoreCase(relayMode);
+        this.slotName = slotName;
+        if (cdc) {
+            Gauge.builder("outbox.cdc.lag", cdcLagBytes, AtomicLong::get)
+                    .baseUnit("bytes")
+                    .description("WAL not yet confirmed by the outbox relay slot")
+                    .register(meterRegistry);
+        } else {
+            Gauge.builder("outbox.unpublished.oldest.age", oldestAgeMs, AtomicLong::get)
+                    .baseUnit("milliseconds")
+                    .description("Age of the oldest unpublished outbox row")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mect.outbox.metrics.refresh-ms:15000}")
+    public void refresh() {
+        try {
+            if (cdc) {
+                refreshCdcLag();
+            } else {
+                refreshBacklog();
+            }
+        } catch (DataAccessException ex) {
+            log.debug("Outbox backlog metrics refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    private void refreshBacklog() {
+        Set<String> seen = new HashSet<>();
+        long[] oldest = {0};
+        jdbcTemplate.query("""
+                SELECT topic, count(*) AS pending,
+                       (extract(epoch FROM localtimestamp - min(created_at)) * 1000)::bigint AS age_ms
+                FROM outbox_entry
+                WHERE published_at IS NULL
+                GROUP BY topic
+                """, rs -> {
+            String topic = rs.getString("topic");
+            seen.add(topic);
+            topicGauge(topic).set(rs.getLong("pending"));
+            oldest[0] = Math.max(oldest[0], rs.getLong("age_ms"));
+        });
+        unpublishedByTopic.forEach((topic, count) -> {
+            if (!seen.contains(topic)) count.set(0);
+        });
+        oldestAgeMs.set(oldest[0]);
+    }
+
+    private void refreshCdcLag() {
+        Long lag = jdbcTemplate.query(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), confirmed_flush_lsn)::bigint FROM pg_replication_slots WHERE slot_name = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, slotName);
+        cdcLagBytes.set(lag != null ? lag : 0);
+    }
+
+    private AtomicLong topicGauge(String topic) {
+        return unpublishedByTopic.computeIfAbsent(topic, t -> {
+            AtomicLong count = new AtomicLong();
+            Gauge.builder("outbox.unpublished", count, AtomicLong::get)
+                    .tag("topic", t)
+                    .description("Unpublished outbox rows")
+                    .register(meterRegistry);
+            return count;
+        });
+    }
+}
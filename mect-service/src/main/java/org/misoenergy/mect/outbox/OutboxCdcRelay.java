@@ -0,0 +1,261 @@
+package org.misoenergy.mect.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change-data-capture relay: reads outbox inserts from the Postgres WAL through a logical replication slot
+ * ({@code pgoutput}, publication from V4 migration) and forwards them to Kafka. Active only with
+ * {@code mect.outbox.relay-mode=cdc}; requires {@code wal_level=logical}.
+ * <p>
+ * Nothing is written back to {@code outbox_entry}: progress is the slot's confirmed flush LSN, which Postgres
+ * persists, so a restarted relay resumes after the last transaction it confirmed. The LSN is only confirmed
+ * once every entry up to that commit has been acked by Kafka; on a failed send the stream is reopened and the
+ * unconfirmed transactions are replayed (at-least-once, consumers are idempotent).
+ * <p>
+ * Only one connection can stream from a slot, so with several replicas one relays and the others keep retrying
+ * until it goes away. Entries that predate the slot are published the polling way, once; see {@link #cdcSince}.
+ */
+@Component
+public class OutboxCdcRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxCdcRelay.class);
+
+    private final OutboxPublisher publisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String slotName;
+    private final String publication;
+    private final int batchSize;
+    private final long statusIntervalMs;
+    private final long retryBackoffMs;
+    private final Counter published;
+
+    private volatile boolean running;
+    /** Another replica holds the slot; set once that was logged, so the retries are logged at DEBUG only. */
+    private boolean standingBy;
+    private Thread thread;
+
+    public OutboxCdcRelay(OutboxPublisher publisher,
+                          JdbcTemplate jdbcTemplate,
+                          @Value("${mect.outbox.relay-mode:poll}") String relayMode,
+                          @Value("${spring.datasource.url}") String url,
+                          @Value("${spring.datasource.username}") String username,
+                          @Value("${spring.datasource.password}") String password,
+                          @Value("${mect.outbox.cdc.slot-name:mect_outbox_relay}") String slotName,
+                          @Value("${mect.outbox.cdc.publication:outbox_pub}") String publication,
+                          @Value("${mect.outbox.batch-size:500}") int batchSize,
+                          @Value("${mect.outbox.cdc.status-interval-ms:10000}") long statusIntervalMs,
+                          @Value("${mect.outbox.cdc.retry-backoff-ms:5000}") long retryBackoffMs,
+                          MeterRegistry meterRegistry) {
+        this.publisher = publisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = "cdc".equalsIgnoreCase(relayMode);
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.slotName = slotName;
+        this.publication = publication;
+        this.batchSize = Math.max(1, batchSize);
+        this.statusIntervalMs = statusIntervalMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.published = meterRegistry.counter("outbox.published", "path", "cdc");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        thread = new Thread(this::run, "outbox-cdc-relay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = openReplicationConnection()) {
+                LocalDateTime cdcSince = cdcSince(createSlotIfMissing(connection));
+                if (cdcSince != null) {
+                    // Rows written before the first slot are not in its stream; publish them the polling way. Once
+                    // published they no longer match, so this is a no-op after the first switch from poll mode.
+                    publisher.drainCreatedBefore(cdcSince);
+                }
+                stream(connection.unwrap(PGConnection.class));
+            } catch (Exception ex) {
+                if (!running) return;
+                if (!slotInUse(ex)) {
+                    log.warn("Outbox CDC relay stopped, retrying in {} ms: {}", retryBackoffMs, ex.getMessage());
+                } else if (!standingBy) {
+                    standingBy = true;
+                    log.warn("Outbox CDC slot {} is streamed by another relay; standing by, retrying every {} ms",
+                            slotName, retryBackoffMs);
+                } else {
+                    log.debug("Outbox CDC slot {} still in use elsewhere: {}", slotName, ex.getMessage());
+                }
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stream(PGConnection connection) throws SQLException, InterruptedException {
+        PGReplicationStream stream = connection.getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(slotName)
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", publication)
+                .withStatusInterval((int) statusIntervalMs, TimeUnit.MILLISECONDS)
+                .start();
+        log.info("Outbox CDC relay streaming from slot {}", slotName);
+        standingBy = false;
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        List<OutboxEntry> transaction = new ArrayList<>();
+        List<OutboxEntry> pending = new ArrayList<>();
+        LogSequenceNumber pendingLsn = null;
+        boolean inTransaction = false;
+        while (running) {
+            ByteBuffer buf = stream.readPending();
+            if (buf == null) {
+                if (pendingLsn != null) {
+                    confirm(stream, pending, pendingLsn);
+                    pendingLsn = null;
+                } else if (!inTransaction) {
+                    // Idle: let the slot move past WAL of other tables so the server can recycle it
+                    LogSequenceNumber received = stream.getLastReceiveLSN();
+                    if (received.asLong() > stream.getLastFlushedLSN().asLong()) {
+                        stream.setAppliedLSN(received);
+                        stream.setFlushedLSN(received);
+                    }
+                }
+                TimeUnit.MILLISECONDS.sleep(10);
+                continue;
+            }
+            PgOutputDecoder.Message message = decoder.decode(buf);
+            switch (message.kind()) {
+                case BEGIN -> {
+                    inTransaction = true;
+                    transaction.clear();
+                }
+                case INSERT -> transaction.add(message.entry());
+                case COMMIT -> {
+                    inTransaction = false;
+                    pending.addAll(transaction);
+                    transaction.clear();
+                    pendingLsn = LogSequenceNumber.valueOf(message.endLsn());
+                    if (pending.size() >= batchSize) {
+                        confirm(stream, pending, pendingLsn);
+                        pendingLsn = null;
+                    }
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /** Send everything committed up to {@code lsn}; confirm the LSN only when all of it was acked. */
+    private void confirm(PGReplicationStream stream, List<OutboxEntry> pending, LogSequenceNumber lsn) throws SQLException {
+        if (!pending.isEmpty()) {
+            List<Long> acked = publisher.sendBatch(pending);
+            if (acked.size() < pending.size()) {
+                throw new IllegalStateException("Kafka acked " + acked.size() + "/" + pending.size()
+                        + " relayed entries; replaying from last confirmed position");
+            }
+            published.increment(acked.size());
+            log.info("Outbox relayed {} events up to {}", acked.size(), lsn);
+            pending.clear();
+        }
+        stream.setAppliedLSN(lsn);
+        stream.setFlushedLSN(lsn);
+        stream.forceUpdateStatus();
+    }
+
+    /**
+     * The switch point from poll mode, recorded the first time this relay creates its slot: entries created before
+     * it are to be published the polling way. A slot recreated later (dropped by hand, or invalidated by
+     * {@code max_slot_wal_keep_size}) keeps the original point, so history still in the outbox is not sent again;
+     * what was committed while the slot was missing is not relayed either.
+     */
+    private LocalDateTime cdcSince(boolean slotCreated) {
+        int recorded = jdbcTemplate.update(
+                "INSERT INTO outbox_relay_state (slot_name, cdc_since) VALUES (?, CASE WHEN ? THEN localtimestamp END) "
+                        + "ON CONFLICT (slot_name) DO NOTHING", slotName, slotCreated);
+        if (slotCreated && recorded == 0) {
+            log.warn("Outbox CDC slot {} was recreated; entries committed while it was missing were not relayed", slotName);
+        }
+        return jdbcTemplate.queryForObject("SELECT cdc_since FROM outbox_relay_state WHERE slot_name = ?",
+                (rs, i) -> rs.getObject(1, LocalDateTime.class), slotName);
+    }
+
+    /** The slot is active for another connection: a replica that is relaying already. */
+    private static boolean slotInUse(Exception ex) {
+        return ex instanceof SQLException sql && "55006".equals(sql.getSQLState());
+    }
+
+    /** Returns true when the slot had to be created. A concurrent replica creating it first is fine. */
+    private boolean createSlotIfMissing(Connection connection) throws SQLException {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_replication_slots WHERE slot_name = ?", Integer.class, slotName);
+        if (existing != null && existing > 0) return false;
+        try {
+            connection.unwrap(PGConnection.class).getReplicationAPI()
+                    .createReplicationSlot()
+                    .logical()
+                    .withSlotName(slotName)
+                    .withOutputPlugin("pgoutput")
+                    .make();
+            log.info("Created logical replication slot {}", slotName);
+            return true;
+        } catch (SQLException ex) {
+            if ("42710".equals(ex.getSQLState())) return false; // duplicate_object
+            throw ex;
+        }
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties props = new Properties();
+        PGProperty.USER.set(props, username);
+        PGProperty.PASSWORD.set(props, password);
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(props, "10");
+        PGProperty.REPLICATION.set(props, "database");
+        PGProperty.PREFER_QUERY_MODE.set(props, "simple");
+        return DriverManager.getConnection(url, props);
+    }
+}
@@ -0,0 +1,139 @@
+package org.misoenergy.mect.outbox;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands outbox entries to the publisher as soon as the transaction that wrote them commits,
+ * instead of waiting for the next poll. Nothing is sent for a rolled-back transaction.
+ * <p>
+ * Best effort only: if the dispatch queue is full or the send fails, the entry stays unpublished and the
+ * {@link OutboxPublisher} poll picks it up. Set {@code mect.outbox.dispatch-mode=poll} to disable; it is also
+ * off in {@code relay-mode=cdc}, where {@link OutboxCdcRelay} forwards every insert.
+ * <p>
+ * Waiting dispatches are taken by {@code topic-weights}, highest weight first and in commit order within a
+ * weight, so a burst of eligibility refreshes does not hold back the withdraw decisions committed behind it.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxPublisher publisher;
+    private final boolean immediate;
+    private final ExecutorService executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public OutboxDispatcher(OutboxPublisher publisher,
+                            @Value("${mect.outbox.dispatch-mode:immediate}") String dispatchMode,
+                            @Value("${mect.outbox.dispatch-threads:4}") int dispatchThreads,
+                            @Value("${mect.outbox.relay-mode:poll}") String relayMode,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.publisher = publisher;
+        this.immediate = "immediate".equalsIgnoreCase(dispatchMode) && !"cdc".equalsIgnoreCase(relayMode);
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("outbox-dispatch-", 1).factory()
+                : r -> new Thread(r, "outbox-dispatch-" + n.incrementAndGet());
+        this.executor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new BoundedPriorityQueue(10_000), threads);
+    }
+
+    /** Queue the entry for publishing once the current transaction commits. No-op in poll mode. */
+    public void dispatchAfterCommit(OutboxEntry entry) {
+        if (!immediate || entry.getId() == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pendingForCurrentTransaction().entries.add(entry);
+    }
+
+    private PendingDispatch pendingForCurrentTransaction() {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof PendingDispatch p && p.dispatcher() == this) return p;
+        }
+        PendingDispatch p = new PendingDispatch();
+        TransactionSynchronizationManager.registerSynchronization(p);
+        return p;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Collects the outbox entries written in one transaction; dispatches them together after commit. */
+    private class PendingDispatch implements TransactionSynchronization {
+
+        private final List<OutboxEntry> entries = new ArrayList<>();
+
+        OutboxDispatcher dispatcher() {
+            return OutboxDispatcher.this;
+        }
+
+        private List<Long> ids() {
+            return entries.stream().map(OutboxEntry::getId).toList();
+        }
+
+        @Override
+        public void afterCommit() {
+            int weight = entries.stream().mapToInt(e -> publisher.weightOf(e.getTopic())).max().orElse(0);
+            try {
+                executor.execute(new Dispatch(weight, sequence.incrementAndGet(), () -> {
+                    try {
+                        publisher.publishEntries(entries);
+                    } catch (Exception ex) {
+                        log.warn("Outbox immediate dispatch failed for ids={}; poller will retry: {}", ids(), ex.getMessage());
+                    }
+                }));
+            } catch (RejectedExecutionException ex) {
+                log.debug("Outbox dispatch queue full; leaving ids={} to the poller", ids());
+            }
+        }
+    }
+
+    /** A transaction's dispatch, ordered by the highest topic weight among its entries, then by commit order. */
+    private record Dispatch(int weight, long sequence, Runnable work) implements Runnable, Comparable<Dispatch> {
+
+        @Override
+        public void run() {
+            work.run();
+        }
+
+        @Override
+        public int compareTo(Dispatch other) {
+            int byWeight = Integer.compare(other.weight, weight);
+            return byWeight != 0 ? byWeight : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /** Priority queue that refuses new work past {@code capacity}, so a full queue leaves entries to the poller. */
+    private static final class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+
+        private final int capacity;
+
+        BoundedPriorityQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            return size() < capacity && super.offer(task);
+        }
+    }
+}
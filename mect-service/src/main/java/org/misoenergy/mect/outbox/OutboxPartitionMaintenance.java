@@ -0,0 +1,109 @@
+package org.misoenergy.mect.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code outbox_entry} ahead of time and retires old ones.
+ * <p>
+ * A partition is retired once its month is older than the retention window and it has no unpublished rows:
+ * it is detached (and dropped when {@code drop-detached} is set), which costs the same regardless of how many
+ * rows it holds. Runs at startup and then on the configured cron; replicas coordinate with an advisory lock.
+ * <p>
+ * In {@code relay-mode=cdc} rows are never marked published (the replication slot tracks progress instead),
+ * so partitions are retired on age alone.
+ */
+@Component
+public class OutboxPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionMaintenance.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("outbox_entry_(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropDetached;
+    private final boolean cdc;
+
+    public OutboxPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${mect.outbox.partitions.months-ahead:3}") int monthsAhead,
+                                      @Value("${mect.outbox.partitions.retention-months:2}") int retentionMonths,
+                                      @Value("${mect.outbox.partitions.drop-detached:true}") boolean dropDetached,
+                                      @Value("${mect.outbox.relay-mode:poll}") String relayMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.dropDetached = dropDetached;
+        this.cdc = "cdc".equalsIgnoreCase(relayMode);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${mect.outbox.partitions.maintenance-cron:0 15 * * * *}")
+    public void maintain() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('outbox_partition_maintenance'))", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) return;
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                createAhead(current);
+                retireOld(current);
+            });
+        } catch (Exception ex) {
+            log.warn("Outbox partition maintenance failed: {}", ex.getMessage());
+        }
+    }
+
+    private void createAhead(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS outbox_entry_" + month.format(SUFFIX)
+                    + " PARTITION OF outbox_entry FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    private void retireOld(YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'outbox_entry'::regclass
+                """, String.class);
+        for (String partition : partitions) {
+            Matcher m = PARTITION_NAME.matcher(partition);
+            if (!m.matches() || !YearMonth.parse(m.group(1), SUFFIX).isBefore(oldestKept)) continue;
+            boolean pending = !cdc && jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE published_at IS NULL)", Boolean.class);
+            if (pending) {
+                log.warn("Outbox partition {} is past retention but still has unpublished rows; keeping it", partition);
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE outbox_entry DETACH PARTITION " + partition);
+            if (dropDetached) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            log.info("Outbox partition {} retired (dropped={})", partition, dropDetached);
+        }
+    }
+}
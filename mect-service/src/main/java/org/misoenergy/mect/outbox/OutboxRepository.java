@@ -1,12 +1,129 @@
 package org.misoenergy.mect.outbox;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
 
-    @Query("SELECT e FROM OutboxEntry e WHERE e.publishedAt IS NULL ORDER BY e.id")
-    List<OutboxEntry> findUnpublished();
+    /**
+     * Claim a bounded page for one publisher instance by setting a lease on it.
+     * <p>
+     * Only the oldest unpublished entry of each (topic, message_key) can start a claim, and it is locked with
+     * {@code SKIP LOCKED} so concurrent instances take disjoint pages. The claim then extends to every other
+     * unpublished entry of the same key, so a key is only ever in flight on one instance and stays in order.
+     * Entries whose lease has expired (instance died mid-publish) become claimable again.
+     */
+    @Transactional
+    @Query(value = """
+            WITH heads AS (
+                SELECT e.id, e.topic, e.message_key FROM outbox_entry e
+                WHERE e.published_at IS NULL
+                  AND (e.lease_expires_at IS NULL OR e.lease_expires_at < localtimestamp)
+                  AND NOT EXISTS (SELECT 1 FROM outbox_entry p
+                                  WHERE p.published_at IS NULL AND p.topic = e.topic
+                                    AND p.message_key = e.message_key AND p.id < e.id)
+                ORDER BY e.id
+                LIMIT :limit
+                FOR UPDATE OF e SKIP LOCKED
+            )
+            UPDATE outbox_entry o
+            SET claimed_by = :owner, lease_expires_at = localtimestamp + make_interval(secs => :leaseMs / 1000.0)
+            WHERE o.published_at IS NULL
+              AND (o.id IN (SELECT id FROM heads)
+                   OR (o.topic, o.message_key) IN (SELECT topic, message_key FROM heads))
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEntry> claimBatch(@Param("owner") String owner, @Param("limit") int limit, @Param("leaseMs") long leaseMs);
+
+    /** Same as {@link #claimBatch}, restricted to one topic (per-topic quotas of the priority scheduler). */
+    @Transactional
+    @Query(value = """
+            WITH heads AS (
+                SELECT e.id, e.topic, e.message_key FROM outbox_entry e
+                WHERE e.published_at IS NULL
+                  AND e.topic = :topic
+                  AND (e.lease_expires_at IS NULL OR e.lease_expires_at < localtimestamp)
+                  AND NOT EXISTS (SELECT 1 FROM outbox_entry p
+                                  WHERE p.published_at IS NULL AND p.topic = e.topic
+                                    AND p.message_key = e.message_key AND p.id < e.id)
+                ORDER BY e.id
+                LIMIT :limit
+                FOR UPDATE OF e SKIP LOCKED
+            )
+            UPDATE outbox_entry o
+            SET claimed_by = :owner, lease_expires_at = localtimestamp + make_interval(secs => :leaseMs / 1000.0)
+            WHERE o.published_at IS NULL
+              AND (o.id IN (SELECT id FROM heads)
+                   OR (o.topic, o.message_key) IN (SELECT topic, message_key FROM heads))
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEntry> claimTopicBatch(@Param("owner") String owner, @Param("topic") String topic,
+                                      @Param("limit") int limit, @Param("leaseMs") long leaseMs);
+
+    /**
+     * {@link #claimBatch} restricted to entries created before {@code before}: the rows that predate the CDC relay's
+     * slot. Later entries of the same keys are not claimed.
+     */
+    @Transactional
+    @Query(value = """
+            WITH heads AS (
+                SELECT e.id, e.topic, e.message_key FROM outbox_entry e
+                WHERE e.published_at IS NULL AND e.created_at < :before
+                  AND (e.lease_expires_at IS NULL OR e.lease_expires_at < localtimestamp)
+                  AND NOT EXISTS (SELECT 1 FROM outbox_entry p
+                                  WHERE p.published_at IS NULL AND p.topic = e.topic
+                                    AND p.message_key = e.message_key AND p.id < e.id)
+                ORDER BY e.id
+                LIMIT :limit
+                FOR UPDATE OF e SKIP LOCKED
+            )
+            UPDATE outbox_entry o
+            SET claimed_by = :owner, lease_expires_at = localtimestamp + make_interval(secs => :leaseMs / 1000.0)
+            WHERE o.published_at IS NULL AND o.created_at < :before
+              AND (o.id IN (SELECT id FROM heads)
+                   OR (o.topic, o.message_key) IN (SELECT topic, message_key FROM heads))
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEntry> claimBatchCreatedBefore(@Param("owner") String owner, @Param("limit") int limit,
+                                              @Param("leaseMs") long leaseMs, @Param("before") LocalDateTime before);
+
+    /**
+     * Claim specific entries just written by a committed transaction (after-commit fast path).
+     * An entry is skipped when it is already leased or published, or when an older unpublished entry of the
+     * same key is not part of the request; the poller then publishes it in order.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE outbox_entry o
+            SET claimed_by = :owner, lease_expires_at = localtimestamp + make_interval(secs => :leaseMs / 1000.0)
+            WHERE o.id IN (:ids)
+              AND o.published_at IS NULL
+              AND (o.lease_expires_at IS NULL OR o.lease_expires_at < localtimestamp)
+              AND NOT EXISTS (SELECT 1 FROM outbox_entry p
+                              WHERE p.published_at IS NULL AND p.topic = o.topic
+                                AND p.message_key = o.message_key AND p.id < o.id AND p.id NOT IN (:ids))
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEntry> claimByIds(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("leaseMs") long leaseMs);
+
+    /** Set-based publish marker: one UPDATE for every entry acked in a batch. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEntry e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") Instant publishedAt);
+
+    /** Give back entries that were claimed but not published so the next poll can retry them immediately. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEntry e SET e.claimedBy = NULL, e.leaseExpiresAt = NULL "
+            + "WHERE e.id IN :ids AND e.claimedBy = :owner AND e.publishedAt IS NULL")
+    int releaseClaims(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
 }
@@ -0,0 +1,120 @@
+package org.misoenergy.mect.outbox;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Minimal decoder for the {@code pgoutput} logical replication protocol (version 1).
+ * <p>
+ * Only what the outbox relay needs is decoded: Relation messages (to learn column order), Insert messages on
+ * {@code outbox_entry} and transaction boundaries. Everything else is reported as {@link Kind#OTHER}.
+ * Column values arrive in text format.
+ */
+class PgOutputDecoder {
+
+    enum Kind { BEGIN, INSERT, COMMIT, OTHER }
+
+    /** One decoded message; {@code entry} is set for INSERT, {@code endLsn} for COMMIT. */
+    record Message(Kind kind, OutboxEntry entry, long endLsn) {}
+
+    private static final String TABLE = "outbox_entry";
+    /** Text form of a {@code timestamp} column, e.g. {@code 2026-10-17 10:00:00.123456}. */
+    private static final DateTimeFormatter TIMESTAMP = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .toFormatter();
+
+    private final Map<Integer, String[]> relations = new HashMap<>();
+
+    Message decode(ByteBuffer buf) {
+        char type = (char) buf.get();
+        switch (type) {
+            case 'B':
+                return new Message(Kind.BEGIN, null, 0);
+            case 'C': {
+                buf.get();           // flags
+                buf.getLong();       // commit LSN
+                long endLsn = buf.getLong();
+                return new Message(Kind.COMMIT, null, endLsn);
+            }
+            case 'R':
+                readRelation(buf);
+                return new Message(Kind.OTHER, null, 0);
+            case 'I': {
+                String[] columns = relations.get(buf.getInt());
+                if (columns == null) return new Message(Kind.OTHER, null, 0);
+                buf.get();           // 'N' (new tuple)
+                return new Message(Kind.INSERT, toEntry(columns, readTuple(buf)), 0);
+            }
+            default:
+                return new Message(Kind.OTHER, null, 0);
+        }
+    }
+
+    private void readRelation(ByteBuffer buf) {
+        int oid = buf.getInt();
+        readString(buf);             // namespace
+        String name = readString(buf);
+        buf.get();                   // replica identity
+        String[] columns = new String[buf.getShort()];
+        for (int i = 0; i < columns.length; i++) {
+            buf.get();               // flags
+            columns[i] = readString(buf);
+            buf.getInt();            // type oid
+            buf.getInt();            // type modifier
+        }
+        // Partitions are published through the root, so only the parent table name shows up here
+        if (TABLE.equals(name)) relations.put(oid, columns);
+        else relations.remove(oid);
+    }
+
+    private static String[] readTuple(ByteBuffer buf) {
+        String[] values = new String[buf.getShort()];
+        for (int i = 0; i < values.length; i++) {
+            char kind = (char) buf.get();
+            if (kind == 't') {
+                byte[] bytes = new byte[buf.getInt()];
+                buf.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            // 'n' = null, 'u' = unchanged TOAST (never on insert)
+        }
+        return values;
+    }
+
+    private static OutboxEntry toEntry(String[] columns, String[] values) {
+        OutboxEntry e = new OutboxEntry();
+        for (int i = 0; i < columns.length && i < values.length; i++) {
+            String v = values[i];
+            switch (columns[i]) {
+                case "id" -> e.setId(Long.valueOf(v));
+                case "topic" -> e.setTopic(v);
+                case "message_key" -> e.setMessageKey(v);
+                case "payload" -> e.setPayload(v);
+                // bytea in text format is hex: \x0a1b...
+                case "payload_bin" -> e.setPayloadBin(v == null ? null : HexFormat.of().parseHex(v, 2, v.length()));
+                // Written by Hibernate as local time of the JVM zone, so read it back the same way
+                case "created_at" -> e.setCreatedAt(v == null ? null
+                        : LocalDateTime.parse(v, TIMESTAMP).atZone(ZoneId.systemDefault()).toInstant());
+                default -> { }
+            }
+        }
+        return e;
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int start = buf.position();
+        while (buf.get() != 0) { }
+        byte[] bytes = new byte[buf.position() - start - 1];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
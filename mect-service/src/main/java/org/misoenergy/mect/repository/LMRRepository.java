@@ -2,6 +2,8 @@ package org.misoenergy.mect.repository;
 
 import org.misoenergy.mect.domain.LMR;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -10,4 +12,12 @@ public interface LMRRepository extends JpaRepository<LMR, Long> {
     Optional<LMR> findByLmrIdAndPlanningYear(String lmrId, String planningYear);
 
     boolean existsByLmrIdAndPlanningYear(String lmrId, String planningYear);
+
+    /**
+     * Atomically advance and return the LMR's eligibility version. The row lock orders concurrent publishes for the
+     * same LMR, so versions on the eligibility topic are strictly increasing per key.
+     */
+    @Query(value = "UPDATE lmr SET eligibility_version = eligibility_version + 1 "
+            + "WHERE lmr_id = :lmrId AND planning_year = :planningYear RETURNING eligibility_version", nativeQuery = true)
+    long nextEligibilityVersion(@Param("lmrId") String lmrId, @Param("planningYear") String planningYear);
 }
@@ -1,11 +1,11 @@
 package org.misoenergy.mect.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.misoenergy.mect.domain.BlockingFlag;
 import org.misoenergy.mect.domain.LMR;
 import org.misoenergy.mect.domain.LmrStatus;
 import org.misoenergy.mect.events.*;
+import org.misoenergy.mect.outbox.OutboxDispatcher;
 import org.misoenergy.mect.outbox.OutboxEntry;
 import org.misoenergy.mect.outbox.OutboxRepository;
 import org.misoenergy.mect.repository.LMRRepository;
@@ -29,7 +29,8 @@ public class LMRService {
 
     private final LMRRepository lmrRepository;
     private final OutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher outboxDispatcher;
+    private final EventCodec eventCodec;
 
     @Value("${mect.kafka.topics.eligibility}")
     private String topicEligibility;
@@ -38,10 +39,12 @@ public class LMRService {
     @Value("${mect.kafka.topics.withdraw-rejected}")
     private String topicWithdrawRejected;
 
-    public LMRService(LMRRepository lmrRepository, OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+    public LMRService(LMRRepository lmrRepository, OutboxRepository outboxRepository,
+                      OutboxDispatcher outboxDispatcher, EventCodec eventCodec) {
         this.lmrRepository = lmrRepository;
         this.outboxRepository = outboxRepository;
-        this.objectMapper = objectMapper;
+        this.outboxDispatcher = outboxDispatcher;
+        this.eventCodec = eventCodec;
     }
 
     /**
@@ -158,6 +161,7 @@ public class LMRService {
         evt.setEventType("lmr.withdraw.eligibility.v1");
         evt.setOccurredAt(Instant.now());
         evt.setUpdatedAt(Instant.now());
+        evt.setVersion(lmrRepository.nextEligibilityVersion(lmrId, planningYear));
         evt.setLmrId(lmrId);
         evt.setPlanningYear(planningYear);
         evt.setCanWithdraw(canWithdraw);
@@ -189,12 +193,16 @@ public class LMRService {
 
     private void writeOutbox(String topic, String key, Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
             OutboxEntry entry = new OutboxEntry();
             entry.setTopic(topic);
             entry.setMessageKey(key);
-            entry.setPayload(json);
+            if (eventCodec.isBinary(topic)) {
+                entry.setPayloadBin(eventCodec.toBinary(payload));
+            } else {
+                entry.setPayload(eventCodec.toJson(payload));
+            }
             outboxRepository.save(entry);
+            outboxDispatcher.dispatchAfterCommit(entry);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Outbox serialization failed", e);
         }
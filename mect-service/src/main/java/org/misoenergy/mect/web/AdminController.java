@@ -0,0 +1,99 @@
+package org.misoenergy.mect.web;
+
+import org.misoenergy.mect.deadletter.DeadLetter;
+import org.misoenergy.mect.deadletter.DeadLetterReplayService;
+import org.misoenergy.mect.deadletter.DeadLetterService;
+import org.misoenergy.mect.events.EventCodec;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Admin APIs for records MECT could not consume (for PoC operation; open like the other MECT endpoints).
+ */
+@RestController
+@RequestMapping("/api/mect/admin")
+@Tag(name = "MECT Admin", description = "Dead letters of the MECT Kafka consumers")
+public class AdminController {
+
+    private final DeadLetterService deadLetterService;
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    public AdminController(DeadLetterService deadLetterService, DeadLetterReplayService deadLetterReplayService) {
+        this.deadLetterService = deadLetterService;
+        this.deadLetterReplayService = deadLetterReplayService;
+    }
+
+    @GetMapping("/dead-letters")
+    @Operation(
+            summary = "List dead letters",
+            description = "Consumed records that exhausted their retry topics or could not be decoded, newest first. "
+                    + "Filter by original topic; limit defaults to 100 (max 1000)."
+    )
+    public ResponseEntity<List<DeadLetterDto>> listDeadLetters(
+            @RequestParam(name = "topic", required = false) String topic,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetterService.list(topic, limit).stream().map(DeadLetterDto::of).toList());
+    }
+
+    @PostMapping("/dead-letters/{id}/replay")
+    @Operation(
+            summary = "Replay one dead letter",
+            description = "Processes the stored record again as its listener would, in one transaction, and marks it "
+                    + "replayed. Nothing is published. 409 if it was already replayed or carries no event (tombstone), "
+                    + "422 if it fails again."
+    )
+    public ResponseEntity<DeadLetterDto> replayDeadLetter(@PathVariable("id") long id) {
+        return ResponseEntity.ok(DeadLetterDto.of(deadLetterReplayService.replay(id)));
+    }
+
+    @PostMapping("/dead-letters/replay")
+    @Operation(
+            summary = "Replay the pending dead letters of a topic",
+            description = "Replays up to limit (default 1000) not yet replayed dead letters of the topic, oldest first, "
+                    + "each in its own transaction, e.g. once the fix for their failure is deployed. "
+                    + "Those that fail again stay pending. Returns the number replayed."
+    )
+    public ResponseEntity<ReplayResultDto> replayDeadLetters(
+            @RequestParam("topic") String topic,
+            @RequestParam(name = "limit", defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(new ReplayResultDto(topic, deadLetterReplayService.replayAll(topic, limit)));
+    }
+
+    /**
+     * Dead letter as shown to admins: {@code payload} is the JSON text, or null for a binary record, whose bytes
+     * are in {@code payloadBase64}.
+     */
+    public record DeadLetterDto(
+            long id,
+            String topic,
+            Integer partition,
+            Long offset,
+            String key,
+            String encoding,
+            String payload,
+            String payloadBase64,
+            String exceptionClass,
+            String exceptionMessage,
+            Instant failedAt,
+            Instant replayedAt
+    ) {
+        static DeadLetterDto of(DeadLetter d) {
+            boolean binary = EventCodec.BINARY.equals(d.getEncoding());
+            byte[] bytes = d.getPayload();
+            return new DeadLetterDto(d.getId(), d.getTopic(), d.getPartition(), d.getOffset(), d.getMessageKey(),
+                    d.getEncoding(),
+                    bytes != null && !binary ? new String(bytes, StandardCharsets.UTF_8) : null,
+                    bytes != null && binary ? Base64.getEncoder().encodeToString(bytes) : null,
+                    d.getExceptionClass(), d.getExceptionMessage(), d.getFailedAt(), d.getReplayedAt());
+        }
+    }
+
+    public record ReplayResultDto(String topic, int replayed) {}
+}
@@ -0,0 +1,5 @@
+-- Lease-based outbox claiming so several publisher instances can drain outbox_entry without double publishing
+
+ALTER TABLE outbox_entry ADD COLUMN IF NOT EXISTS claimed_by VARCHAR(128);
+ALTER TABLE outbox_entry ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_outbox_unpublished_key ON outbox_entry(topic, message_key, id) WHERE published_at IS NULL;
@@ -0,0 +1,3 @@
+-- Monotonic per-LMR eligibility version, carried on lmr.withdraw.eligibility.v1 so LES can apply last-writer-wins
+
+ALTER TABLE lmr ADD COLUMN eligibility_version BIGINT NOT NULL DEFAULT 0;
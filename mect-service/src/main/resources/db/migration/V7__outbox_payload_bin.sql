@@ -0,0 +1,5 @@
+-- Topics written in the binary event encoding store their payload in payload_bin instead of payload (see EventCodec)
+
+ALTER TABLE outbox_entry ALTER COLUMN payload DROP NOT NULL;
+ALTER TABLE outbox_entry ADD COLUMN payload_bin BYTEA;
+ALTER TABLE outbox_entry ADD CONSTRAINT outbox_entry_payload_present CHECK (payload IS NOT NULL OR payload_bin IS NOT NULL);
@@ -0,0 +1,16 @@
+-- Records that exhausted their retries (or could not be decoded), kept for inspection and replay
+CREATE TABLE dead_letter (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(128) NOT NULL,
+    partition_no INT,
+    offset_no BIGINT,
+    message_key VARCHAR(256),
+    encoding VARCHAR(16) NOT NULL,
+    payload BYTEA,
+    exception_class VARCHAR(256),
+    exception_message TEXT,
+    failed_at TIMESTAMP NOT NULL,
+    replayed_at TIMESTAMP
+);
+CREATE INDEX idx_dead_letter_topic ON dead_letter(topic, id);
+CREATE INDEX idx_dead_letter_pending ON dead_letter(topic, id) WHERE replayed_at IS NULL;
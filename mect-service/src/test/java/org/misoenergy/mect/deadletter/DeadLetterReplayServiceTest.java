@@ -0,0 +1,124 @@
+package org.misoenergy.mect.deadletter;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.mect.events.EventCodec;
+import org.misoenergy.mect.kafka.MectKafkaConsumers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayServiceTest {
+
+    private static final String TOPIC = "lmr.withdraw.requested.v1";
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+    @Mock
+    private MectKafkaConsumers consumers;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DeadLetterReplayService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DeadLetterReplayService(deadLetterRepository, consumers, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void replayRunsTheStoredRecordThroughItsListenerOnce() throws Exception {
+        DeadLetter letter = letter(5L, "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+        when(deadLetterRepository.findById(5L)).thenReturn(Optional.of(letter));
+
+        service.replay(5L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ConsumerRecord<String, byte[]>> record = ArgumentCaptor.forClass(ConsumerRecord.class);
+        verify(consumers).replay(record.capture());
+        assertThat(record.getValue().topic()).isEqualTo(TOPIC);
+        assertThat(record.getValue().key()).isEqualTo("2026:L1");
+        assertThat(new String(record.getValue().value(), StandardCharsets.UTF_8)).isEqualTo("{\"a\":1}");
+        assertThat(new String(record.getValue().headers().lastHeader(EventCodec.HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(EventCodec.JSON);
+        assertThat(record.getValue().timestamp()).isEqualTo(letter.getFailedAt().toEpochMilli());
+        assertThat(letter.getReplayedAt()).isNotNull();
+
+        assertThatThrownBy(() -> service.replay(5L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void tombstoneIsRefused() throws Exception {
+        when(deadLetterRepository.findById(5L)).thenReturn(Optional.of(letter(5L, null)));
+
+        assertThatThrownBy(() -> service.replay(5L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(consumers, never()).replay(any());
+    }
+
+    @Test
+    void recordWithoutAnEventIsRefusedAndStaysPending() throws Exception {
+        DeadLetter letter = letter(5L, "null".getBytes(StandardCharsets.UTF_8));
+        when(deadLetterRepository.findById(5L)).thenReturn(Optional.of(letter));
+        doThrow(new EventCodec.NoEventException(DeadLetterReplayService.toRecord(letter))).when(consumers).replay(any());
+
+        assertThatThrownBy(() -> service.replay(5L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(letter.getReplayedAt()).isNull();
+    }
+
+    @Test
+    void replayAllSkipsTheLettersThatFailAgain() throws Exception {
+        DeadLetter failing = letter(5L, "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+        DeadLetter fixed = letter(6L, "{\"a\":2}".getBytes(StandardCharsets.UTF_8));
+        when(deadLetterRepository.findByTopicAndReplayedAtIsNullOrderByIdAsc(eq(TOPIC), any()))
+                .thenReturn(List.of(failing, fixed));
+        when(deadLetterRepository.findById(5L)).thenReturn(Optional.of(failing));
+        when(deadLetterRepository.findById(6L)).thenReturn(Optional.of(fixed));
+        doThrow(new IllegalStateException("still broken")).when(consumers).replay(argThat(r -> r != null && r.offset() == 5L));
+
+        assertThat(service.replayAll(TOPIC, 100)).isEqualTo(1);
+        assertThat(failing.getReplayedAt()).isNull();
+        assertThat(fixed.getReplayedAt()).isNotNull();
+        verify(transactionManager).rollback(any());
+    }
+
+    private static DeadLetter letter(long id, byte[] payload) {
+        DeadLetter letter = new DeadLetter();
+        letter.setId(id);
+        letter.setTopic(TOPIC);
+        letter.setPartition(0);
+        letter.setOffset(id);
+        letter.setMessageKey("2026:L1");
+        letter.setEncoding(EventCodec.JSON);
+        letter.setPayload(payload);
+        letter.setFailedAt(Instant.parse("2026-03-02T10:15:30Z"));
+        return letter;
+    }
+}
@@ -0,0 +1,89 @@
+package org.misoenergy.mect.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.misoenergy.mect.events.EventCodec;
+import org.misoenergy.mect.events.LmrApprovedEvent;
+import org.misoenergy.mect.events.LmrWithdrawRequestedEvent;
+import org.misoenergy.mect.idempotency.IdempotencyService;
+import org.misoenergy.mect.service.LMRService;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MectKafkaConsumersTest {
+
+    private static final String APPROVED = "lmr.approved.v1";
+    private static final String WITHDRAW_REQUESTED = "lmr.withdraw.requested.v1";
+    private static final Instant AT = Instant.parse("2026-03-02T10:15:30Z");
+
+    @Mock
+    private EventCodec eventCodec;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private LMRService lmrService;
+    @Mock
+    private EventLatency eventLatency;
+
+    private MectKafkaConsumers consumers;
+
+    @BeforeEach
+    void setUp() {
+        consumers = new MectKafkaConsumers(eventCodec, idempotencyService, lmrService, eventLatency);
+        ReflectionTestUtils.setField(consumers, "topicApproved", APPROVED);
+        ReflectionTestUtils.setField(consumers, "topicWithdrawRequested", WITHDRAW_REQUESTED);
+    }
+
+    @Test
+    void replayAppliesTheEventOfItsTopicWithoutTimingIt() throws Exception {
+        ConsumerRecord<String, byte[]> record = record(WITHDRAW_REQUESTED);
+        LmrWithdrawRequestedEvent evt = new LmrWithdrawRequestedEvent();
+        evt.setEventId("e1");
+        evt.setOccurredAt(AT);
+        when(eventCodec.decode(record, LmrWithdrawRequestedEvent.class)).thenReturn(evt);
+        when(idempotencyService.markProcessed("e1", AT, record)).thenReturn(true);
+
+        consumers.replay(record);
+
+        verify(lmrService).onWithdrawRequested("e1", evt);
+        verifyNoInteractions(eventLatency);
+    }
+
+    @Test
+    void replayOfAnAlreadyProcessedEventDoesNothing() throws Exception {
+        ConsumerRecord<String, byte[]> record = record(APPROVED);
+        LmrApprovedEvent evt = new LmrApprovedEvent();
+        evt.setEventId("e1");
+        evt.setOccurredAt(AT);
+        when(eventCodec.decode(record, LmrApprovedEvent.class)).thenReturn(evt);
+        when(idempotencyService.markProcessed("e1", AT, record)).thenReturn(false);
+
+        consumers.replay(record);
+
+        verify(lmrService, never()).onApproved(any(), any());
+    }
+
+    @Test
+    void replayOfATopicMectDoesNotConsumeIsRejected() {
+        assertThatThrownBy(() -> consumers.replay(record("lmr.withdraw.completed.v1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(idempotencyService, lmrService);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 7L, "2026:L1", new byte[0]);
+    }
+}
@@ -0,0 +1,73 @@
+package org.misoenergy.mect.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    @Test
+    void queuedDispatches_runHighestTopicWeightFirst() throws Exception {
+        OutboxPublisher publisher = mock(OutboxPublisher.class);
+        when(publisher.weightOf("completed")).thenReturn(8);
+        when(publisher.weightOf("eligibility")).thenReturn(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        doAnswer(inv -> {
+            Collection<OutboxEntry> entries = inv.getArgument(0);
+            long id = entries.iterator().next().getId();
+            order.add(id);
+            if (id == 1L) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            done.countDown();
+            return null;
+        }).when(publisher).publishEntries(any());
+        OutboxDispatcher dispatcher = new OutboxDispatcher(publisher, "immediate", 1, "poll", false);
+
+        commit(dispatcher, entry(1L, "eligibility"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // The only dispatch thread is busy: a burst of eligibility, then a withdraw decision
+        commit(dispatcher, entry(2L, "eligibility"));
+        commit(dispatcher, entry(3L, "eligibility"));
+        commit(dispatcher, entry(4L, "completed"));
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(1L, 4L, 2L, 3L);
+        dispatcher.shutdown();
+    }
+
+    private static void commit(OutboxDispatcher dispatcher, OutboxEntry entry) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dispatcher.dispatchAfterCommit(entry);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static OutboxEntry entry(Long id, String topic) {
+        OutboxEntry e = new OutboxEntry();
+        e.setId(id);
+        e.setTopic(topic);
+        e.setMessageKey("2026:LMR-" + id);
+        return e;
+    }
+}
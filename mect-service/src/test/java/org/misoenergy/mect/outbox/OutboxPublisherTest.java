@@ -0,0 +1,122 @@
+package org.misoenergy.mect.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxPublisherTest {
+
+    private static final String COMPLETED = "lmr.withdraw.completed.v1";
+    private static final String ELIGIBILITY = "lmr.withdraw.eligibility.v1";
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    /** Unpublished entries per topic, oldest first; claims take from the head. */
+    private final Map<String, Deque<OutboxEntry>> backlog = new HashMap<>();
+    private long nextId = 1;
+
+    @Test
+    void parseWeights_ordersTopicsByDescendingWeightAndIgnoresNonPositive() {
+        Map<String, Integer> weights = OutboxPublisher.parseWeights("a=1, b=8 ,novalue,c=0");
+
+        assertThat(weights.keySet()).containsExactly("b", "a");
+        assertThat(weights).containsEntry("b", 8).containsEntry("a", 1);
+        assertThat(OutboxPublisher.parseWeights("")).isEmpty();
+    }
+
+    @Test
+    void claimPage_givesEveryListedTopicItsQuota_thenFillsByWeight() {
+        OutboxPublisher publisher = publisher(10);
+        stubBacklog();
+        add(COMPLETED, 20);
+        add(ELIGIBILITY, 20);
+
+        List<OutboxEntry> page = publisher.claimPage();
+
+        // Quotas 10*8/9 = 8 and max(1, 10*1/9) = 1; the last slot goes to the heavier topic
+        assertThat(page).hasSize(10);
+        assertThat(page.stream().filter(e -> e.getTopic().equals(ELIGIBILITY))).hasSize(1);
+        verify(outboxRepository).claimTopicBatch(anyString(), eq(COMPLETED), eq(8), anyLong());
+        verify(outboxRepository).claimTopicBatch(anyString(), eq(ELIGIBILITY), eq(1), anyLong());
+        verify(outboxRepository).claimTopicBatch(anyString(), eq(COMPLETED), eq(1), anyLong());
+        verify(outboxRepository, never()).claimBatch(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void claimPage_fillsUnusedQuotaWithTheLowerWeightTopic() {
+        OutboxPublisher publisher = publisher(10);
+        stubBacklog();
+        add(COMPLETED, 3);
+        add(ELIGIBILITY, 100);
+
+        List<OutboxEntry> page = publisher.claimPage();
+
+        assertThat(page).hasSize(10);
+        assertThat(page.stream().filter(e -> e.getTopic().equals(COMPLETED))).hasSize(3);
+        verify(outboxRepository).claimTopicBatch(anyString(), eq(ELIGIBILITY), eq(6), anyLong());
+    }
+
+    @Test
+    void claimPage_handsBackWhatAKeyClaimBroughtInPastTheBatchSize() {
+        OutboxPublisher publisher = publisher(2);
+        // Asking for one head of COMPLETED claims its whole key: three entries
+        when(outboxRepository.claimTopicBatch(anyString(), eq(COMPLETED), anyInt(), anyLong()))
+                .thenReturn(new ArrayList<>(List.of(entry(1L, COMPLETED), entry(2L, COMPLETED), entry(3L, COMPLETED))));
+
+        List<OutboxEntry> page = publisher.claimPage();
+
+        assertThat(page).extracting(OutboxEntry::getId).containsExactly(1L, 2L);
+        verify(outboxRepository).releaseClaims(eq(List.of(3L)), anyString());
+    }
+
+    private void stubBacklog() {
+        when(outboxRepository.claimTopicBatch(anyString(), anyString(), anyInt(), anyLong())).thenAnswer(inv -> {
+            Deque<OutboxEntry> entries = backlog.getOrDefault(inv.getArgument(1), new ArrayDeque<>());
+            List<OutboxEntry> claimed = new ArrayList<>();
+            while (claimed.size() < (int) inv.getArgument(2) && !entries.isEmpty()) claimed.add(entries.poll());
+            return claimed;
+        });
+    }
+
+    private OutboxPublisher publisher(int batchSize) {
+        return new OutboxPublisher(outboxRepository, kafkaTemplate, batchSize, 2, 1000, 60000, "test", "poll", 4, false,
+                COMPLETED + "=8," + ELIGIBILITY + "=1", new SimpleMeterRegistry());
+    }
+
+    private void add(String topic, int count) {
+        Deque<OutboxEntry> entries = backlog.computeIfAbsent(topic, t -> new ArrayDeque<>());
+        for (int i = 0; i < count; i++) entries.add(entry(nextId++, topic));
+    }
+
+    private static OutboxEntry entry(Long id, String topic) {
+        OutboxEntry e = new OutboxEntry();
+        e.setId(id);
+        e.setTopic(topic);
+        e.setMessageKey("2026:LMR-" + id);
+        e.setPayload("{}");
+        return e;
+    }
+}